@@ -0,0 +1,47 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+public class BenchmarkRunner {
+    private static final String VECTOR_KERNEL = "com/puzzletimer/graphics/vector/VectorVertexKernel.class";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+
+        // listing and help requests must not start a run
+        if (options.shouldHelp() ||
+                options.shouldList() ||
+                options.shouldListWithParams() ||
+                options.shouldListProfilers() ||
+                options.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(jvmArgs())
+                .build()).run();
+    }
+
+    // forks only see the vector kernel if the incubator module is resolved
+    private static String[] jvmArgs() {
+        if (BenchmarkRunner.class.getClassLoader().getResource(VECTOR_KERNEL) != null) {
+            return new String[]{"-Djava.awt.headless=true", "--add-modules=jdk.incubator.vector"};
+        }
+
+        return new String[]{"-Djava.awt.headless=true"};
+    }
+}
@@ -0,0 +1,101 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import com.puzzletimer.graphics.Face;
+import com.puzzletimer.graphics.Matrix44;
+import com.puzzletimer.graphics.Mesh;
+import com.puzzletimer.graphics.MeshRecipe;
+import com.puzzletimer.graphics.PackedMesh;
+import com.puzzletimer.graphics.Plane;
+import com.puzzletimer.graphics.Vector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryBenchmark {
+    @Param({"cube", "megaminx", "pyraminx"})
+    public String puzzle;
+
+    private MeshRecipe recipe;
+    private Mesh mesh;
+    private Mesh solid;
+    private Plane[] planes;
+    private PackedMesh packed;
+    private PackedMesh destination;
+    private Plane plane;
+    private Matrix44 rotation;
+
+    @Setup
+    public void setup() {
+        this.recipe = Puzzles.recipe(this.puzzle);
+        this.mesh = this.recipe.compute();
+        this.solid = Puzzles.solid(this.puzzle);
+        this.planes = Puzzles.planes(this.puzzle).toArray(new Plane[0]);
+        this.packed = PackedMesh.fromMesh(this.mesh);
+        this.destination = this.packed.copy();
+        this.plane = new Plane(new Vector3(0.05D, 0.1D, 0.0D), new Vector3(0.3D, 0.8D, 0.5D).unit());
+        this.rotation = Matrix44.rotationX(0.3D).mul(Matrix44.rotationY(0.2D));
+    }
+
+    @Benchmark
+    public void faceClip(Blackhole blackhole) {
+        for (Face face : this.mesh.faces) {
+            blackhole.consume(face.clip(this.plane));
+        }
+    }
+
+    @Benchmark
+    public Mesh meshCut() {
+        return this.mesh.cut(this.plane, 0.01D);
+    }
+
+    @Benchmark
+    public Mesh cutSequential() {
+        Mesh mesh = this.solid;
+        for (Plane plane : this.planes) {
+            mesh = mesh.cut(plane, 0.01D);
+        }
+
+        return mesh;
+    }
+
+    @Benchmark
+    public Mesh cutAll() {
+        return this.solid.cutAll(this.planes, 0.01D);
+    }
+
+    @Benchmark
+    public Mesh meshTransform() {
+        return this.mesh.transform(this.rotation);
+    }
+
+    @Benchmark
+    public PackedMesh packedTransform() {
+        return this.packed.transform(this.rotation, this.destination);
+    }
+
+    @Benchmark
+    public Mesh meshRotateHalfspace() {
+        return this.mesh.rotateHalfspace(this.plane, 0.5D);
+    }
+
+    @Benchmark
+    public PackedMesh packedRotateHalfspace() {
+        return this.packed.rotateHalfspace(this.plane, 0.5D, this.destination);
+    }
+
+    @Benchmark
+    public Mesh build() {
+        return this.recipe.compute();
+    }
+}
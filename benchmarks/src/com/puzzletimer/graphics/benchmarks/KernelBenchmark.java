@@ -0,0 +1,82 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import com.puzzletimer.graphics.Matrix44;
+import com.puzzletimer.graphics.MutableMatrix44;
+import com.puzzletimer.graphics.Vector3;
+import com.puzzletimer.graphics.VertexKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KernelBenchmark {
+    // "vector" needs the jar built with -Pvector; see the README
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"256", "16384"})
+    public int vertices;
+
+    private VertexKernel vertexKernel;
+    private double[] matrix;
+    private double[] source;
+    private double[] destination;
+    private double[] camera;
+    private double[] screenX;
+    private double[] screenY;
+    private Vector3 viewer;
+
+    @Setup
+    public void setup() {
+        if ("scalar".equals(this.kernel)) {
+            this.vertexKernel = VertexKernel.scalar();
+        } else {
+            this.vertexKernel = VertexKernel.vector();
+            if (this.vertexKernel == null) {
+                throw new IllegalStateException("vector kernel unavailable; build the benchmarks with -Pvector on JDK 17+");
+            }
+        }
+
+        this.matrix = new MutableMatrix44(
+                Matrix44.rotationX(0.3D).mul(Matrix44.rotationY(0.2D)).mul(Matrix44.rotationZ(0.1D))).values;
+
+        Random random = new Random(42L);
+        this.source = new double[3 * this.vertices];
+        for (int i = 0; i < this.source.length; i++) {
+            this.source[i] = random.nextDouble() - 0.5D;
+        }
+
+        // camera space input for projection, in front of the eye as in a render
+        this.destination = new double[3 * this.vertices];
+        this.camera = this.source.clone();
+        for (int i = 0; i < this.vertices; i++) {
+            this.camera[3 * i + 2] += 2.8D;
+        }
+
+        this.screenX = new double[this.vertices];
+        this.screenY = new double[this.vertices];
+        this.viewer = new Vector3(0.0D, 0.0D, -325.0D);
+    }
+
+    @Benchmark
+    public double[] transform() {
+        this.vertexKernel.transform(this.matrix, this.source, 0, this.destination, 0, this.vertices);
+        return this.destination;
+    }
+
+    @Benchmark
+    public double[] project() {
+        this.vertexKernel.project(this.camera, 0, this.vertices, 160.0D, 120.0D, this.viewer, this.screenX, this.screenY);
+        return this.screenX;
+    }
+}
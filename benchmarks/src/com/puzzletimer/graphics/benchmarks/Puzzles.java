@@ -0,0 +1,114 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import com.puzzletimer.graphics.Face;
+import com.puzzletimer.graphics.Mesh;
+import com.puzzletimer.graphics.MeshRecipe;
+import com.puzzletimer.graphics.Move;
+import com.puzzletimer.graphics.Plane;
+import com.puzzletimer.graphics.Vector3;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class Puzzles {
+    private static final Color[] COLORS = {
+            new Color(255, 255, 255), new Color(255, 0, 0), new Color(0, 128, 0),
+            new Color(255, 128, 0), new Color(0, 0, 255), new Color(255, 255, 0),
+            new Color(128, 0, 128), new Color(0, 255, 255), new Color(255, 192, 203),
+            new Color(128, 128, 0), new Color(128, 128, 128), new Color(0, 255, 0)};
+
+    private Puzzles() {
+    }
+
+    public static MeshRecipe recipe(String puzzle) {
+        if ("cube".equals(puzzle)) {
+            MeshRecipe recipe = MeshRecipe.cube(COLORS);
+            for (Plane plane : planes(puzzle)) {
+                recipe = recipe.cut(plane, 0.0D);
+            }
+
+            return recipe.shortenFaces(0.03D).softenFaces(0.015D);
+        }
+
+        if ("megaminx".equals(puzzle)) {
+            MeshRecipe recipe = MeshRecipe.dodecahedron(COLORS);
+            for (Plane plane : planes(puzzle)) {
+                recipe = recipe.cut(plane, 0.0D);
+            }
+
+            return recipe.shortenFaces(0.01D).softenFaces(0.005D);
+        }
+
+        if ("pyraminx".equals(puzzle)) {
+            MeshRecipe recipe = MeshRecipe.tetrahedron(COLORS);
+            for (Plane plane : planes(puzzle)) {
+                recipe = recipe.cut(plane, 0.0D);
+            }
+
+            return recipe.shortenFaces(0.02D).softenFaces(0.01D);
+        }
+
+        throw new IllegalArgumentException("unknown puzzle " + puzzle);
+    }
+
+    public static Mesh solid(String puzzle) {
+        if ("cube".equals(puzzle)) {
+            return Mesh.cube(COLORS);
+        }
+
+        if ("megaminx".equals(puzzle)) {
+            return Mesh.dodecahedron(COLORS);
+        }
+
+        return Mesh.tetrahedron(COLORS);
+    }
+
+    public static Mesh mesh(String puzzle) {
+        return recipe(puzzle).compute();
+    }
+
+    public static List<Plane> planes(String puzzle) {
+        List<Plane> planes = new ArrayList<Plane>();
+        if ("cube".equals(puzzle)) {
+            for (Vector3 n : Arrays.asList(new Vector3(1.0D, 0.0D, 0.0D), new Vector3(0.0D, 1.0D, 0.0D), new Vector3(0.0D, 0.0D, 1.0D))) {
+                planes.add(new Plane(n.mul(1.0D / 6.0D), n));
+                planes.add(new Plane(n.mul(-1.0D / 6.0D), n.neg()));
+            }
+        } else if ("megaminx".equals(puzzle)) {
+            for (Face face : Mesh.dodecahedron(COLORS).faces) {
+                Vector3 n = new Plane(face.vertices[0], face.vertices[1], face.vertices[2]).n;
+                planes.add(new Plane(n.mul(0.4D), n));
+            }
+        } else if ("pyraminx".equals(puzzle)) {
+            // layers split the height of the tetrahedron into thirds, measured
+            // from the inradius of Mesh.tetrahedron; rounded offsets leave the
+            // layers slightly asymmetric and moves no longer map faces onto faces
+            double inradius = 1.5D * Math.sqrt(2.0D / 3.0D) / 4.0D;
+            for (Face face : Mesh.tetrahedron(COLORS).faces) {
+                Vector3 n = new Plane(face.vertices[0], face.vertices[1], face.vertices[2]).n;
+                planes.add(new Plane(n.mul(-inradius / 3.0D), n.neg()));
+                planes.add(new Plane(n.mul(-5.0D * inradius / 3.0D), n.neg()));
+            }
+        }
+
+        return planes;
+    }
+
+    public static List<Move> scramble(String puzzle, int length, long seed) {
+        List<Plane> planes = planes(puzzle);
+        double angle = "cube".equals(puzzle) ? Math.PI / 2.0D :
+                "megaminx".equals(puzzle) ? 2.0D * Math.PI / 5.0D :
+                        2.0D * Math.PI / 3.0D;
+
+        Random random = new Random(seed);
+        List<Move> moves = new ArrayList<Move>();
+        for (int i = 0; i < length; i++) {
+            moves.add(new Move(planes.get(random.nextInt(planes.size())), angle * (1 + random.nextInt(2))));
+        }
+
+        return moves;
+    }
+}
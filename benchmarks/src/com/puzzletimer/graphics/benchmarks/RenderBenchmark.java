@@ -0,0 +1,57 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import com.puzzletimer.graphics.Mesh;
+import com.puzzletimer.graphics.RenderMode;
+import com.puzzletimer.graphics.Renderer;
+import com.puzzletimer.graphics.View;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+    @Param({"cube", "megaminx", "pyraminx"})
+    public String puzzle;
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"PAINTER", "Z_BUFFER"})
+    public RenderMode mode;
+
+    private Renderer renderer;
+    private Mesh mesh;
+    private View view;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        System.setProperty("java.awt.headless", "true");
+
+        this.renderer = new Renderer(this.mode);
+        this.mesh = Puzzles.mesh(this.puzzle);
+        this.view = new View().setSize(this.size, this.size);
+        this.image = new BufferedImage(this.size, this.size, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        this.renderer.render(this.mesh, this.view, this.image);
+        return this.image;
+    }
+
+    @Benchmark
+    public byte[] paintPng() {
+        return this.renderer.renderPng(this.mesh, this.view);
+    }
+}
@@ -0,0 +1,99 @@
+package com.puzzletimer.graphics.benchmarks;
+
+import com.puzzletimer.graphics.Easing;
+import com.puzzletimer.graphics.Mesh;
+import com.puzzletimer.graphics.Move;
+import com.puzzletimer.graphics.MoveCompiler;
+import com.puzzletimer.graphics.PackedMesh;
+import com.puzzletimer.graphics.PermutationTable;
+import com.puzzletimer.graphics.TurnAnimation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScrambleBenchmark {
+    @Param({"cube", "megaminx", "pyraminx"})
+    public String puzzle;
+
+    @Param({"70"})
+    public int length;
+
+    private Mesh mesh;
+    private List<Move> scramble;
+    private PermutationTable table;
+    private int[] moveIndices;
+    private int[] solved;
+    private TurnAnimation animation;
+
+    @Setup
+    public void setup() {
+        this.mesh = Puzzles.mesh(this.puzzle);
+        this.scramble = Puzzles.scramble(this.puzzle, this.length, 42L);
+
+        this.table = new PermutationTable(this.mesh, this.scramble);
+        this.moveIndices = new int[this.length];
+        for (int i = 0; i < this.length; i++) {
+            this.moveIndices[i] = i;
+        }
+
+        this.solved = this.table.solvedColors();
+        this.animation = new TurnAnimation(this.mesh, this.scramble.get(0), Easing.EASE_IN_OUT);
+    }
+
+    @Benchmark
+    public Mesh sequentialRotateHalfspace() {
+        Mesh mesh = this.mesh;
+        for (Move move : this.scramble) {
+            mesh = mesh.rotateHalfspace(move.plane, move.angle);
+        }
+
+        return mesh;
+    }
+
+    @Benchmark
+    public Mesh moveCompiler() {
+        return MoveCompiler.apply(this.mesh, this.scramble);
+    }
+
+    @Benchmark
+    public int[] permutationTable() {
+        return this.table.apply(this.solved, this.moveIndices);
+    }
+
+    @Benchmark
+    public Mesh permutationTableMesh() {
+        return this.table.toMesh(this.table.apply(this.solved, this.moveIndices));
+    }
+
+    @Benchmark
+    public Mesh animationFramesRotateHalfspace() {
+        Move move = this.scramble.get(0);
+        Mesh mesh = null;
+        for (int i = 1; i <= 60; i++) {
+            mesh = this.mesh.rotateHalfspace(move.plane, Easing.EASE_IN_OUT.apply(i / 60.0D) * move.angle);
+        }
+
+        return mesh;
+    }
+
+    @Benchmark
+    public PackedMesh animationFrames() {
+        PackedMesh frame = null;
+        for (int i = 1; i <= 60; i++) {
+            frame = this.animation.frame(i / 60.0D);
+        }
+
+        return frame;
+    }
+}
@@ -0,0 +1,304 @@
+package com.puzzletimer.graphics;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BatchRenderer {
+    // called on the worker threads: one result at a time in index order
+    // when ordered, otherwise concurrently, so it must be thread safe
+    public interface ResultHandler {
+        void handle(RenderResult result);
+    }
+
+    private static final int MAX_POOLED_SIZES = 4;
+
+    private final Renderer renderer;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final ThreadLocal<Buffers> buffers;
+    private volatile RenderCache cache;
+
+    private final AtomicLong submitted;
+    private final AtomicLong completed;
+    private final AtomicLong failed;
+    private final AtomicInteger pending;
+    private final AtomicInteger maxObservedPending;
+    private volatile long startTime;
+
+    public BatchRenderer(int threads, int maxPending) {
+        this(new Renderer(), threads, maxPending);
+    }
+
+    public BatchRenderer(Renderer renderer, int threads, int maxPending) {
+        if (threads < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("threads and maxPending must be positive");
+        }
+
+        this.renderer = renderer;
+        // jobs are independent and never fork, so work stealing buys nothing;
+        // a fixed pool with the permit semaphore keeps the backlog bounded
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger next = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "batch-renderer-" + this.next.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.maxPending = maxPending;
+        this.buffers = new ThreadLocal<Buffers>() {
+            protected Buffers initialValue() {
+                return new Buffers();
+            }
+        };
+
+        this.submitted = new AtomicLong();
+        this.completed = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.pending = new AtomicInteger();
+        this.maxObservedPending = new AtomicInteger();
+        this.startTime = System.nanoTime();
+    }
+
+    public void setCache(RenderCache cache) {
+        this.cache = cache;
+    }
+
+    public BatchStatistics render(Iterable<RenderJob> jobs, RenderFormat format, boolean ordered, ResultHandler handler) throws InterruptedException {
+        return render(jobs.iterator(), format, ordered, handler);
+    }
+
+    public synchronized BatchStatistics render(Iterator<RenderJob> jobs, RenderFormat format, boolean ordered, ResultHandler handler) throws InterruptedException {
+        this.submitted.set(0L);
+        this.completed.set(0L);
+        this.failed.set(0L);
+        this.maxObservedPending.set(0);
+        this.startTime = System.nanoTime();
+
+        Semaphore permits = new Semaphore(this.maxPending);
+        Delivery delivery = new Delivery(handler, ordered, permits);
+
+        int index = 0;
+        while (jobs.hasNext()) {
+            RenderJob job = jobs.next();
+
+            permits.acquire();
+            int pending = this.pending.incrementAndGet();
+            this.submitted.incrementAndGet();
+            try {
+                this.executor.execute(new Task(index, job, format, delivery));
+            } catch (RejectedExecutionException e) {
+                // the task will never deliver, so give back what it took
+                this.submitted.decrementAndGet();
+                this.pending.decrementAndGet();
+                permits.release();
+                throw e;
+            }
+
+            int max = this.maxObservedPending.get();
+            while (pending > max && !this.maxObservedPending.compareAndSet(max, pending)) {
+                max = this.maxObservedPending.get();
+            }
+            index++;
+        }
+
+        permits.acquire(this.maxPending);
+        permits.release(this.maxPending);
+
+        // every result has been delivered; only now report a handler failure
+        Throwable handlerError = delivery.getHandlerError();
+        if (handlerError instanceof RuntimeException) {
+            throw (RuntimeException) handlerError;
+        }
+        if (handlerError instanceof Error) {
+            throw (Error) handlerError;
+        }
+        if (handlerError != null) {
+            throw new IllegalStateException("result handler failed", handlerError);
+        }
+
+        return getStatistics();
+    }
+
+    public BatchStatistics getStatistics() {
+        return new BatchStatistics(
+                this.submitted.get(),
+                this.completed.get(),
+                this.failed.get(),
+                this.pending.get(),
+                this.maxObservedPending.get(),
+                System.nanoTime() - this.startTime);
+    }
+
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    private RenderResult render(int index, RenderJob job, RenderFormat format) throws IOException {
+        RenderCache cache = this.cache;
+        if (cache == null) {
+            return renderUncached(index, job, format);
+        }
+
+        RenderCache.Key key = RenderCache.key(job.mesh, job.view, format, this.renderer);
+        RenderResult result = cache.get(key);
+        if (result == null) {
+            result = renderUncached(index, job, format);
+            cache.put(key, result);
+        }
+
+        return result.setJob(index, job);
+    }
+
+    private RenderResult renderUncached(int index, RenderJob job, RenderFormat format) throws IOException {
+        Buffers buffers = this.buffers.get();
+        BufferedImage image = buffers.image(job.view.width, job.view.height);
+        this.renderer.render(job.mesh, job.view, image);
+
+        if (format == RenderFormat.ARGB) {
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int[] argb = new int[pixels.length];
+            System.arraycopy(pixels, 0, argb, 0, pixels.length);
+
+            return new RenderResult(index, job, image.getWidth(), image.getHeight(), null, argb, null);
+        }
+
+        buffers.output.reset();
+        ImageIO.write(image, "png", buffers.output);
+
+        return new RenderResult(index, job, image.getWidth(), image.getHeight(), buffers.output.toByteArray(), null, null);
+    }
+
+    private static class Buffers {
+        private final Map<Long, BufferedImage> images;
+        private final ByteArrayOutputStream output;
+
+        private Buffers() {
+            this.images = new HashMap<Long, BufferedImage>();
+            this.output = new ByteArrayOutputStream();
+        }
+
+        private BufferedImage image(int width, int height) {
+            Long key = ((long) width << 32) | height;
+            BufferedImage image = this.images.get(key);
+            if (image == null) {
+                if (this.images.size() >= MAX_POOLED_SIZES) {
+                    this.images.clear();
+                }
+
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                this.images.put(key, image);
+            }
+
+            return image;
+        }
+    }
+
+    private class Task implements Runnable {
+        private final int index;
+        private final RenderJob job;
+        private final RenderFormat format;
+        private final Delivery delivery;
+
+        private Task(int index, RenderJob job, RenderFormat format, Delivery delivery) {
+            this.index = index;
+            this.job = job;
+            this.format = format;
+            this.delivery = delivery;
+        }
+
+        public void run() {
+            RenderResult result;
+            try {
+                result = render(this.index, this.job, this.format);
+            } catch (Throwable t) {
+                BatchRenderer.this.failed.incrementAndGet();
+                result = new RenderResult(this.index, this.job, this.job.view.width, this.job.view.height, null, null, t);
+            }
+
+            this.delivery.deliver(result);
+        }
+    }
+
+    private class Delivery {
+        private final ResultHandler handler;
+        private final boolean ordered;
+        private final Semaphore permits;
+        private final Map<Integer, RenderResult> waiting;
+        private int next;
+        private Throwable handlerError;
+
+        private Delivery(ResultHandler handler, boolean ordered, Semaphore permits) {
+            this.handler = handler;
+            this.ordered = ordered;
+            this.permits = permits;
+            this.waiting = new HashMap<Integer, RenderResult>();
+            this.next = 0;
+        }
+
+        private void deliver(RenderResult result) {
+            if (!this.ordered) {
+                emit(result);
+                return;
+            }
+
+            synchronized (this) {
+                this.waiting.put(result.index, result);
+                for (RenderResult r = this.waiting.remove(this.next); r != null; r = this.waiting.remove(this.next)) {
+                    this.next++;
+                    emit(r);
+                }
+            }
+        }
+
+        private synchronized Throwable getHandlerError() {
+            return this.handlerError;
+        }
+
+        // a throwing handler must not stop the drain: the results behind it
+        // would never be delivered and their permits would never return
+        private void emit(RenderResult result) {
+            boolean handled = false;
+            try {
+                this.handler.handle(result);
+                handled = true;
+            } catch (Throwable t) {
+                synchronized (this) {
+                    if (this.handlerError == null) {
+                        this.handlerError = t;
+                    }
+                }
+            } finally {
+                // render failures were already counted by the task
+                if (result.error == null) {
+                    if (handled) {
+                        BatchRenderer.this.completed.incrementAndGet();
+                    } else {
+                        BatchRenderer.this.failed.incrementAndGet();
+                    }
+                }
+                BatchRenderer.this.pending.decrementAndGet();
+                this.permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.puzzletimer.graphics;
+
+public class BatchStatistics {
+    public final long submitted;
+    public final long completed;
+    public final long failed;
+    public final int pending;
+    public final int maxPending;
+    public final long elapsedNanos;
+
+    public BatchStatistics(long submitted, long completed, long failed, int pending, int maxPending, long elapsedNanos) {
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.pending = pending;
+        this.maxPending = maxPending;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double throughput() {
+        if (this.elapsedNanos <= 0L) {
+            return 0.0D;
+        }
+
+        return this.completed / (this.elapsedNanos / 1e9D);
+    }
+
+    public String toString() {
+        return String.format(
+                "submitted=%d completed=%d failed=%d pending=%d maxPending=%d elapsed=%.3fs throughput=%.1f/s",
+                this.submitted,
+                this.completed,
+                this.failed,
+                this.pending,
+                this.maxPending,
+                this.elapsedNanos / 1e9D,
+                throughput());
+    }
+}
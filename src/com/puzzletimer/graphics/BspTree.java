@@ -0,0 +1,303 @@
+package com.puzzletimer.graphics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class BspTree {
+    private static final int FRONT = 1;
+    private static final int BACK = 2;
+    private static final int COPLANAR = 3;
+    private static final int SPANNING = 4;
+
+    private static final double PLANE_EPSILON = 1e-6D;
+    private static final double CLIP_EPSILON = 0.01D;
+    private static final int SPLITTER_CANDIDATES = 4;
+
+    private static class Work {
+        private final int node;
+        private final List<Face> faces;
+
+        private Work(int node, List<Face> faces) {
+            this.node = node;
+            this.faces = faces;
+        }
+    }
+
+    // faces after splitting, stored so that each node owns a contiguous range
+    public final Mesh mesh;
+
+    private int nodeCount;
+    private double[] planes;
+    private int[] front;
+    private int[] back;
+    private int[] faceStart;
+    private int[] faceEnd;
+
+    public BspTree(Mesh mesh) {
+        this.nodeCount = 0;
+        this.planes = new double[64];
+        this.front = new int[16];
+        this.back = new int[16];
+        this.faceStart = new int[16];
+        this.faceEnd = new int[16];
+
+        List<Face> faces = new ArrayList<Face>();
+        if (mesh.faces.length > 0) {
+            List<Face> all = new ArrayList<Face>(mesh.faces.length);
+            for (Face face : mesh.faces) {
+                all.add(face);
+            }
+
+            // explicit work stack: the tree of a convex mesh is a chain as deep as its face count
+            Deque<Work> work = new ArrayDeque<Work>();
+            work.push(new Work(newNode(), all));
+            while (!work.isEmpty()) {
+                build(work.pop(), faces, work);
+            }
+        }
+
+        this.mesh = new Mesh(faces.toArray(new Face[faces.size()]));
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int[] order(Vector3 eye) {
+        int[] result = new int[this.mesh.faces.length];
+        order(eye.x, eye.y, eye.z, result, new int[stackSize()]);
+
+        return result;
+    }
+
+    int stackSize() {
+        return 2 * this.nodeCount + 2;
+    }
+
+    // writes every face index into result, farthest from the eye first
+    void order(double x, double y, double z, int[] result, int[] stack) {
+        if (this.nodeCount == 0) {
+            return;
+        }
+
+        int count = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int entry = stack[--top];
+            int node = entry >> 1;
+
+            double d = this.planes[4 * node] * x +
+                    this.planes[4 * node + 1] * y +
+                    this.planes[4 * node + 2] * z -
+                    this.planes[4 * node + 3];
+            int near = d >= 0.0D ? this.front[node] : this.back[node];
+            int far = d >= 0.0D ? this.back[node] : this.front[node];
+
+            if ((entry & 1) == 0) {
+                stack[top++] = (node << 1) | 1;
+                if (far >= 0) {
+                    stack[top++] = far << 1;
+                }
+            } else {
+                for (int i = this.faceStart[node]; i < this.faceEnd[node]; i++) {
+                    result[count++] = i;
+                }
+                if (near >= 0) {
+                    stack[top++] = near << 1;
+                }
+            }
+        }
+    }
+
+    private void build(Work work, List<Face> output, Deque<Work> pending) {
+        int node = work.node;
+        double[] plane = splitter(work.faces);
+        System.arraycopy(plane, 0, this.planes, 4 * node, 4);
+
+        List<Face> frontFaces = new ArrayList<Face>();
+        List<Face> backFaces = new ArrayList<Face>();
+        this.faceStart[node] = output.size();
+        for (Face face : work.faces) {
+            switch (classify(face, plane)) {
+                case COPLANAR:
+                    output.add(face);
+                    break;
+                case FRONT:
+                    frontFaces.add(face);
+                    break;
+                case BACK:
+                    backFaces.add(face);
+                    break;
+                default:
+                    Plane frontPlane = new Plane(
+                            new Vector3(plane[0] * plane[3], plane[1] * plane[3], plane[2] * plane[3]),
+                            new Vector3(plane[0], plane[1], plane[2]));
+                    Face frontPart = face.clip(frontPlane);
+                    Face backPart = face.clip(new Plane(frontPlane.p, frontPlane.n.neg()));
+                    if (frontPart.vertices.length >= 3) {
+                        frontFaces.add(frontPart);
+                    }
+                    if (backPart.vertices.length >= 3) {
+                        backFaces.add(backPart);
+                    }
+            }
+        }
+        this.faceEnd[node] = output.size();
+
+        if (frontFaces.isEmpty()) {
+            this.front[node] = -1;
+        } else {
+            int child = newNode();
+            this.front[node] = child;
+            pending.push(new Work(child, frontFaces));
+        }
+
+        if (backFaces.isEmpty()) {
+            this.back[node] = -1;
+        } else {
+            int child = newNode();
+            this.back[node] = child;
+            pending.push(new Work(child, backFaces));
+        }
+    }
+
+    // picks the candidate plane with the fewest splits, then the best balance
+    private static double[] splitter(List<Face> faces) {
+        double[] best = null;
+        long bestScore = Long.MAX_VALUE;
+
+        int step = Math.max(1, faces.size() / SPLITTER_CANDIDATES);
+        for (int i = 0; i < faces.size(); i += step) {
+            double[] plane = plane(faces.get(i));
+            if (plane == null) {
+                continue;
+            }
+
+            long frontCount = 0;
+            long backCount = 0;
+            long splits = 0;
+            for (Face face : faces) {
+                int side = classify(face, plane);
+                if (side == FRONT) {
+                    frontCount++;
+                } else if (side == BACK) {
+                    backCount++;
+                } else if (side == SPANNING) {
+                    splits++;
+                }
+            }
+
+            long score = 8L * splits + Math.abs(frontCount - backCount);
+            if (score < bestScore) {
+                best = plane;
+                bestScore = score;
+            }
+        }
+
+        if (best == null) {
+            for (Face face : faces) {
+                best = plane(face);
+                if (best != null) {
+                    break;
+                }
+            }
+        }
+
+        // only degenerate faces are left; they all end up in this node
+        return best == null ? new double[]{0.0D, 0.0D, 0.0D, 0.0D} : best;
+    }
+
+    // Newell normal and offset, or null for faces without area
+    private static double[] plane(Face face) {
+        Vector3[] vertices = face.vertices;
+        if (vertices.length < 3) {
+            return null;
+        }
+
+        double nx = 0.0D;
+        double ny = 0.0D;
+        double nz = 0.0D;
+        double cx = 0.0D;
+        double cy = 0.0D;
+        double cz = 0.0D;
+        for (int i = 0; i < vertices.length; i++) {
+            Vector3 a = vertices[i];
+            Vector3 b = vertices[(i + 1) % vertices.length];
+            nx += (a.y - b.y) * (a.z + b.z);
+            ny += (a.z - b.z) * (a.x + b.x);
+            nz += (a.x - b.x) * (a.y + b.y);
+            cx += a.x;
+            cy += a.y;
+            cz += a.z;
+        }
+
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length < 1e-12D) {
+            return null;
+        }
+
+        nx /= length;
+        ny /= length;
+        nz /= length;
+
+        return new double[]{nx, ny, nz, (nx * cx + ny * cy + nz * cz) / vertices.length};
+    }
+
+    private static int classify(Face face, double[] plane) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (Vector3 v : face.vertices) {
+            double d = plane[0] * v.x + plane[1] * v.y + plane[2] * v.z - plane[3];
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+
+        if (face.vertices.length < 3 || (min >= -PLANE_EPSILON && max <= PLANE_EPSILON)) {
+            return COPLANAR;
+        }
+
+        if (min >= -PLANE_EPSILON) {
+            return FRONT;
+        }
+
+        if (max <= PLANE_EPSILON) {
+            return BACK;
+        }
+
+        // Face.clip treats vertices within its epsilon as on the plane, so
+        // faces that only cross inside that band go whole to the deeper side
+        if (min >= -CLIP_EPSILON || max <= CLIP_EPSILON) {
+            return max > -min ? FRONT : BACK;
+        }
+
+        return SPANNING;
+    }
+
+    private int newNode() {
+        if (this.nodeCount == this.front.length) {
+            int capacity = 2 * this.front.length;
+            this.planes = grow(this.planes, 4 * capacity);
+            this.front = grow(this.front, capacity);
+            this.back = grow(this.back, capacity);
+            this.faceStart = grow(this.faceStart, capacity);
+            this.faceEnd = grow(this.faceEnd, capacity);
+        }
+
+        return this.nodeCount++;
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        double[] result = new double[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
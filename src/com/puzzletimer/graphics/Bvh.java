@@ -0,0 +1,338 @@
+package com.puzzletimer.graphics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class Bvh {
+    private static final int LEAF_SIZE = 4;
+    private static final double EDGE_EPSILON = 1e-9D;
+
+    private static class Work {
+        private final int node;
+        private final int start;
+        private final int end;
+
+        private Work(int node, int start, int end) {
+            this.node = node;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public final Mesh mesh;
+
+    private int nodeCount;
+    private double[] bounds;
+    private int[] children;
+    private int[] faceStart;
+    private int[] faceEnd;
+    private final int[] faces;
+    private final double[] planes;
+    private final double[] centroids;
+
+    public Bvh(Mesh mesh) {
+        this.mesh = mesh;
+
+        int count = mesh.faces.length;
+        this.faces = new int[count];
+        this.planes = new double[4 * count];
+        this.centroids = new double[3 * count];
+        for (int i = 0; i < count; i++) {
+            this.faces[i] = i;
+            plane(mesh.faces[i], this.planes, 4 * i);
+            centroid(mesh.faces[i], this.centroids, 3 * i);
+        }
+
+        this.nodeCount = 0;
+        this.bounds = new double[6 * 16];
+        this.children = new int[16];
+        this.faceStart = new int[16];
+        this.faceEnd = new int[16];
+
+        Deque<Work> work = new ArrayDeque<Work>();
+        work.push(new Work(newNode(), 0, count));
+        while (!work.isEmpty()) {
+            build(work.pop(), work);
+        }
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    // nearest face hit by the ray origin + t * direction with t > 0, or null
+    public PickResult intersect(Vector3 origin, Vector3 direction) {
+        double ox = origin.x;
+        double oy = origin.y;
+        double oz = origin.z;
+        double dx = direction.x;
+        double dy = direction.y;
+        double dz = direction.z;
+        double ix = 1.0D / dx;
+        double iy = 1.0D / dy;
+        double iz = 1.0D / dz;
+
+        int bestFace = -1;
+        double bestT = Double.POSITIVE_INFINITY;
+
+        int[] stack = new int[2 * this.nodeCount + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, ix, iy, iz) >= bestT) {
+                continue;
+            }
+
+            int child = this.children[node];
+            if (child < 0) {
+                for (int i = this.faceStart[node]; i < this.faceEnd[node]; i++) {
+                    int face = this.faces[i];
+                    double t = intersect(face, ox, oy, oz, dx, dy, dz);
+                    if (t < bestT) {
+                        bestT = t;
+                        bestFace = face;
+                    }
+                }
+                continue;
+            }
+
+            // the nearer child goes on top, so it is searched first
+            double left = entry(child, ox, oy, oz, ix, iy, iz);
+            double right = entry(child + 1, ox, oy, oz, ix, iy, iz);
+            if (left <= right) {
+                stack[top++] = child + 1;
+                stack[top++] = child;
+            } else {
+                stack[top++] = child;
+                stack[top++] = child + 1;
+            }
+        }
+
+        if (bestFace < 0) {
+            return null;
+        }
+
+        return new PickResult(
+                bestFace,
+                this.mesh.faces[bestFace],
+                new Vector3(ox + bestT * dx, oy + bestT * dy, oz + bestT * dz),
+                bestT);
+    }
+
+    // ray parameter where the ray enters a node's box, or infinity on a miss
+    private double entry(int node, double ox, double oy, double oz, double ix, double iy, double iz) {
+        int k = 6 * node;
+        double t1 = (this.bounds[k] - ox) * ix;
+        double t2 = (this.bounds[k + 3] - ox) * ix;
+        double near = Math.min(t1, t2);
+        double far = Math.max(t1, t2);
+
+        t1 = (this.bounds[k + 1] - oy) * iy;
+        t2 = (this.bounds[k + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        t1 = (this.bounds[k + 2] - oz) * iz;
+        t2 = (this.bounds[k + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+
+        // NaN from a zero direction component on a box face counts as a miss
+        if (!(near <= far) || far <= 0.0D) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return Math.max(near, 0.0D);
+    }
+
+    // ray parameter of the hit with a convex face, or infinity on a miss
+    private double intersect(int face, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int k = 4 * face;
+        double nx = this.planes[k];
+        double ny = this.planes[k + 1];
+        double nz = this.planes[k + 2];
+
+        double denominator = nx * dx + ny * dy + nz * dz;
+        if (denominator == 0.0D) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double t = (this.planes[k + 3] - (nx * ox + ny * oy + nz * oz)) / denominator;
+        if (!(t > 0.0D)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double px = ox + t * dx;
+        double py = oy + t * dy;
+        double pz = oz + t * dz;
+
+        // inside when the point is on the inner side of every edge
+        Vector3[] vertices = this.mesh.faces[face].vertices;
+        for (int i = 0; i < vertices.length; i++) {
+            Vector3 a = vertices[i];
+            Vector3 b = vertices[(i + 1) % vertices.length];
+            double ex = b.x - a.x;
+            double ey = b.y - a.y;
+            double ez = b.z - a.z;
+            double qx = px - a.x;
+            double qy = py - a.y;
+            double qz = pz - a.z;
+            double side = nx * (ey * qz - ez * qy) + ny * (ez * qx - ex * qz) + nz * (ex * qy - ey * qx);
+            if (side < -EDGE_EPSILON) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+
+        return t;
+    }
+
+    private void build(Work work, Deque<Work> pending) {
+        int node = work.node;
+
+        double[] box = new double[]{
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double[] spread = box.clone();
+        for (int i = work.start; i < work.end; i++) {
+            int face = this.faces[i];
+            for (Vector3 v : this.mesh.faces[face].vertices) {
+                include(box, v.x, v.y, v.z);
+            }
+            include(spread, this.centroids[3 * face], this.centroids[3 * face + 1], this.centroids[3 * face + 2]);
+        }
+        System.arraycopy(box, 0, this.bounds, 6 * node, 6);
+
+        if (work.end - work.start <= LEAF_SIZE) {
+            this.children[node] = -1;
+            this.faceStart[node] = work.start;
+            this.faceEnd[node] = work.end;
+            return;
+        }
+
+        // median split along the axis where the face centroids spread the most
+        int axis = 0;
+        for (int j = 1; j < 3; j++) {
+            if (spread[j + 3] - spread[j] > spread[axis + 3] - spread[axis]) {
+                axis = j;
+            }
+        }
+
+        int middle = (work.start + work.end) >>> 1;
+        select(work.start, work.end - 1, middle, axis);
+
+        // siblings are allocated together, so the right child is left + 1
+        int left = newNode();
+        int right = newNode();
+        this.children[node] = left;
+        this.faceStart[node] = work.start;
+        this.faceEnd[node] = work.end;
+        pending.push(new Work(left, work.start, middle));
+        pending.push(new Work(right, middle, work.end));
+    }
+
+    // partially sorts faces[low..high] by centroid so that index k holds the median
+    private void select(int low, int high, int k, int axis) {
+        while (low < high) {
+            double pivot = this.centroids[3 * this.faces[(low + high) >>> 1] + axis];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (this.centroids[3 * this.faces[i] + axis] < pivot) {
+                    i++;
+                }
+                while (this.centroids[3 * this.faces[j] + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = this.faces[i];
+                    this.faces[i] = this.faces[j];
+                    this.faces[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void include(double[] box, double x, double y, double z) {
+        box[0] = Math.min(box[0], x);
+        box[1] = Math.min(box[1], y);
+        box[2] = Math.min(box[2], z);
+        box[3] = Math.max(box[3], x);
+        box[4] = Math.max(box[4], y);
+        box[5] = Math.max(box[5], z);
+    }
+
+    // Newell normal and offset; faces without area get a zero normal and are never hit
+    private static void plane(Face face, double[] planes, int offset) {
+        Vector3[] vertices = face.vertices;
+        double nx = 0.0D;
+        double ny = 0.0D;
+        double nz = 0.0D;
+        double cx = 0.0D;
+        double cy = 0.0D;
+        double cz = 0.0D;
+        for (int i = 0; i < vertices.length; i++) {
+            Vector3 a = vertices[i];
+            Vector3 b = vertices[(i + 1) % vertices.length];
+            nx += (a.y - b.y) * (a.z + b.z);
+            ny += (a.z - b.z) * (a.x + b.x);
+            nz += (a.x - b.x) * (a.y + b.y);
+            cx += a.x;
+            cy += a.y;
+            cz += a.z;
+        }
+
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (vertices.length < 3 || length < 1e-12D) {
+            return;
+        }
+
+        planes[offset] = nx / length;
+        planes[offset + 1] = ny / length;
+        planes[offset + 2] = nz / length;
+        planes[offset + 3] = (nx * cx + ny * cy + nz * cz) / (length * vertices.length);
+    }
+
+    private static void centroid(Face face, double[] centroids, int offset) {
+        Vector3[] vertices = face.vertices;
+        for (Vector3 v : vertices) {
+            centroids[offset] += v.x / vertices.length;
+            centroids[offset + 1] += v.y / vertices.length;
+            centroids[offset + 2] += v.z / vertices.length;
+        }
+    }
+
+    private int newNode() {
+        if (this.nodeCount == this.children.length) {
+            int capacity = 2 * this.children.length;
+            this.bounds = grow(this.bounds, 6 * capacity);
+            this.children = grow(this.children, capacity);
+            this.faceStart = grow(this.faceStart, capacity);
+            this.faceEnd = grow(this.faceEnd, capacity);
+        }
+
+        return this.nodeCount++;
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        double[] result = new double[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] result = new int[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
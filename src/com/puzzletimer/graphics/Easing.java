@@ -0,0 +1,30 @@
+package com.puzzletimer.graphics;
+
+public abstract class Easing {
+    public static final Easing LINEAR = new Easing() {
+        public double apply(double t) {
+            return t;
+        }
+    };
+
+    public static final Easing EASE_IN = new Easing() {
+        public double apply(double t) {
+            return t * t;
+        }
+    };
+
+    public static final Easing EASE_OUT = new Easing() {
+        public double apply(double t) {
+            return t * (2.0D - t);
+        }
+    };
+
+    public static final Easing EASE_IN_OUT = new Easing() {
+        public double apply(double t) {
+            return t * t * (3.0D - 2.0D * t);
+        }
+    };
+
+    // maps progress in [0, 1] to rotation progress, with 0 -> 0 and 1 -> 1
+    public abstract double apply(double t);
+}
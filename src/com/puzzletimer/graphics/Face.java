@@ -3,8 +3,16 @@ package com.puzzletimer.graphics;
 import java.util.ArrayList;
 
 public class Face {
+    static final int FRONT = 1;
+    static final int BACK = 2;
+    static final int SPANNING = 3;
+
+    private static final double CLIP_EPSILON = 0.01D;
+    private static final double BOUNDS_TOLERANCE = 1e-9D;
+
     public final Vector3[] vertices;
     public final java.awt.Color color;
+    private volatile double[] bounds;
 
     public Face(Vector3[] vertices, java.awt.Color color) {
         this.vertices = vertices;
@@ -31,6 +39,43 @@ public class Face {
         return sum.mul(1.0D / this.vertices.length);
     }
 
+    double[] bounds() {
+        double[] bounds = this.bounds;
+        if (bounds == null) {
+            Vector3 center = centroid();
+
+            double radius = 0.0D;
+            for (Vector3 v : this.vertices) {
+                radius = Math.max(radius, v.sub(center).norm());
+            }
+
+            bounds = new double[]{center.x, center.y, center.z, radius};
+            this.bounds = bounds;
+        }
+
+        return bounds;
+    }
+
+    int side(Plane plane) {
+        double[] bounds = bounds();
+        double d = (bounds[0] - plane.p.x) * plane.n.x +
+                (bounds[1] - plane.p.y) * plane.n.y +
+                (bounds[2] - plane.p.z) * plane.n.z;
+        double r = bounds[3] + BOUNDS_TOLERANCE;
+
+        // only faces with every vertex strictly beyond the clip band take a
+        // shortcut; anything touching the band gets the exact per-vertex test
+        if (d - r > CLIP_EPSILON) {
+            return FRONT;
+        }
+
+        if (d + r < -CLIP_EPSILON) {
+            return BACK;
+        }
+
+        return SPANNING;
+    }
+
     public Face transform(Matrix44 matrix) {
         Vector3[] vertices = new Vector3[this.vertices.length];
         for (int i = 0; i < vertices.length; i++) {
@@ -73,10 +118,19 @@ public class Face {
     }
 
     public Face clip(Plane plane) {
-        double EPSILON = 0.01D;
+        if (this.vertices.length == 0) {
+            return this;
+        }
+
+        switch (side(plane)) {
+            case FRONT:
+                return this;
+            case BACK:
+                return setVertices(new Vector3[0]);
+        }
+
+        double EPSILON = CLIP_EPSILON;
         int INSIDE = 0;
-        int FRONT = 1;
-        int BACK = 2;
 
         int[] position = new int[this.vertices.length];
         boolean allFront = true;
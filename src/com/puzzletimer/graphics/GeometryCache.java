@@ -0,0 +1,159 @@
+package com.puzzletimer.graphics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+public class GeometryCache {
+    private static final GeometryCache DEFAULT = new GeometryCache();
+
+    private final Map<String, Mesh> meshes;
+    private final Map<String, FutureTask<Mesh>> pending;
+    private volatile File directory;
+
+    public GeometryCache() {
+        this(null);
+    }
+
+    public GeometryCache(File directory) {
+        this.meshes = new HashMap<String, Mesh>();
+        this.pending = new HashMap<String, FutureTask<Mesh>>();
+        this.directory = directory;
+    }
+
+    public static GeometryCache getDefault() {
+        return DEFAULT;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public Mesh get(final MeshRecipe recipe) {
+        final String key = recipe.key();
+
+        FutureTask<Mesh> task;
+        boolean owner = false;
+        synchronized (this.meshes) {
+            Mesh mesh = this.meshes.get(key);
+            if (mesh != null) {
+                return mesh;
+            }
+
+            // concurrent misses share one computation per key
+            task = this.pending.get(key);
+            if (task == null) {
+                final File directory = this.directory;
+                task = new FutureTask<Mesh>(new Callable<Mesh>() {
+                    public Mesh call() {
+                        Mesh mesh = directory == null ? null : load(new File(directory, key + ".mesh"));
+                        if (mesh == null) {
+                            mesh = recipe.compute();
+                            if (directory != null) {
+                                store(directory, key, mesh);
+                            }
+                        }
+
+                        return mesh;
+                    }
+                });
+                this.pending.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (this.meshes) {
+                    this.pending.remove(key);
+                    Mesh mesh = result(task);
+                    if (mesh != null) {
+                        this.meshes.put(key, mesh);
+                    }
+                }
+            }
+        }
+
+        return await(task);
+    }
+
+    public void clear() {
+        synchronized (this.meshes) {
+            this.meshes.clear();
+        }
+    }
+
+    // the finished mesh, or null if the computation failed
+    private static Mesh result(FutureTask<Mesh> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            // unreachable: the task has already run
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static Mesh await(FutureTask<Mesh> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Mesh load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            return MeshFile.read(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void store(File directory, String key, Mesh mesh) {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return;
+            }
+
+            File temporary = File.createTempFile(key, ".tmp", directory);
+            MeshFile.write(mesh, temporary);
+
+            if (!temporary.renameTo(new File(directory, key + ".mesh"))) {
+                temporary.delete();
+            }
+        } catch (IOException e) {
+            // the cache directory is an optimisation; failing to write it is not an error
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.puzzletimer.graphics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class Instrumentation {
+    // The mesh operations are recorded by Mesh, ParallelMesh and PackedMesh.
+    // MESH_CUT includes the clips of the cut, which are not recorded again as
+    // MESH_CLIP, so the totals do not overlap. A move compiler records each
+    // move as MOVE_APPLY and each getMesh as MOVE_MATERIALIZE.
+    public enum Operation {
+        RENDER_TRANSFORM,
+        RENDER_SORT,
+        RENDER_PROJECT,
+        RENDER_SHADE,
+        RENDER_FILL,
+        MESH_TRANSFORM,
+        MESH_ROTATE_HALFSPACE,
+        MESH_CLIP,
+        MESH_CUT,
+        MOVE_APPLY,
+        MOVE_MATERIALIZE
+    }
+
+    // bucket i counts frames that took [2^i, 2^(i + 1)) microseconds
+    public static final int HISTOGRAM_BUCKETS = 24;
+
+    public static final String OBJECT_NAME = "com.puzzletimer.graphics:type=Instrumentation";
+
+    // read on every hook; everything else is only touched when it is set
+    static volatile boolean enabled = false;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final AtomicLongArray COUNTS = new AtomicLongArray(OPERATIONS.length);
+    private static final AtomicLongArray NANOS = new AtomicLongArray(OPERATIONS.length);
+    private static final AtomicLongArray HISTOGRAM = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private static final AtomicLong FRAMES = new AtomicLong();
+    private static final AtomicLong FRAME_NANOS = new AtomicLong();
+    private static final AtomicLong FACES = new AtomicLong();
+    private static final AtomicLong VERTICES = new AtomicLong();
+
+    private Instrumentation() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Instrumentation.enabled = enabled;
+    }
+
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    static void record(Operation operation, long start) {
+        if (start == 0L) {
+            return;
+        }
+
+        COUNTS.incrementAndGet(operation.ordinal());
+        NANOS.addAndGet(operation.ordinal(), System.nanoTime() - start);
+    }
+
+    static void recordFrame(long start, int faces, int vertices) {
+        if (start == 0L) {
+            return;
+        }
+
+        long nanos = System.nanoTime() - start;
+        FRAMES.incrementAndGet();
+        FRAME_NANOS.addAndGet(nanos);
+        FACES.addAndGet(faces);
+        VERTICES.addAndGet(vertices);
+
+        long micros = Math.max(1L, nanos / 1000L);
+        int bucket = Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        HISTOGRAM.incrementAndGet(bucket);
+    }
+
+    public static long getCount(Operation operation) {
+        return COUNTS.get(operation.ordinal());
+    }
+
+    public static long getNanos(Operation operation) {
+        return NANOS.get(operation.ordinal());
+    }
+
+    public static long getFrames() {
+        return FRAMES.get();
+    }
+
+    public static long getFrameNanos() {
+        return FRAME_NANOS.get();
+    }
+
+    public static long getFaces() {
+        return FACES.get();
+    }
+
+    public static long getVertices() {
+        return VERTICES.get();
+    }
+
+    public static long[] getFrameTimeHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = HISTOGRAM.get(i);
+        }
+
+        return histogram;
+    }
+
+    public static void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            COUNTS.set(i, 0L);
+            NANOS.set(i, 0L);
+        }
+
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            HISTOGRAM.set(i, 0L);
+        }
+
+        FRAMES.set(0L);
+        FRAME_NANOS.set(0L);
+        FACES.set(0L);
+        VERTICES.set(0L);
+    }
+
+    public static synchronized ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static synchronized void unregisterMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class MXBean implements InstrumentationMXBean {
+        public boolean isEnabled() {
+            return Instrumentation.isEnabled();
+        }
+
+        public void setEnabled(boolean enabled) {
+            Instrumentation.setEnabled(enabled);
+        }
+
+        public long getFrames() {
+            return Instrumentation.getFrames();
+        }
+
+        public long getFaces() {
+            return Instrumentation.getFaces();
+        }
+
+        public long getVertices() {
+            return Instrumentation.getVertices();
+        }
+
+        public double getMeanFrameMillis() {
+            long frames = Instrumentation.getFrames();
+            return frames == 0L ? 0.0D : Instrumentation.getFrameNanos() / (frames * 1e6D);
+        }
+
+        public long[] getFrameTimeHistogram() {
+            return Instrumentation.getFrameTimeHistogram();
+        }
+
+        public Map<String, Long> getOperationCounts() {
+            Map<String, Long> counts = new LinkedHashMap<String, Long>();
+            for (Operation operation : OPERATIONS) {
+                counts.put(operation.name(), Instrumentation.getCount(operation));
+            }
+
+            return counts;
+        }
+
+        public Map<String, Long> getOperationNanos() {
+            Map<String, Long> nanos = new LinkedHashMap<String, Long>();
+            for (Operation operation : OPERATIONS) {
+                nanos.put(operation.name(), Instrumentation.getNanos(operation));
+            }
+
+            return nanos;
+        }
+
+        public void reset() {
+            Instrumentation.reset();
+        }
+    }
+}
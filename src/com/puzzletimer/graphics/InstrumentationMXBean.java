@@ -0,0 +1,27 @@
+package com.puzzletimer.graphics;
+
+import java.util.Map;
+
+public interface InstrumentationMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFrames();
+
+    long getFaces();
+
+    long getVertices();
+
+    double getMeanFrameMillis();
+
+    long[] getFrameTimeHistogram();
+
+    // keyed by Instrumentation.Operation name; a cut's clips count only as
+    // the cut, so the operation totals do not overlap
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Long> getOperationNanos();
+
+    void reset();
+}
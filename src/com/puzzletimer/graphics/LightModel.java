@@ -0,0 +1,140 @@
+package com.puzzletimer.graphics;
+
+import java.util.Arrays;
+
+public abstract class LightModel {
+    // the original shading: the view's light direction against a normal
+    // facing the screen, so every front face gets the same intensity
+    public static final LightModel VIEW = new LightModel() {
+        public double intensity(View view, double nx, double ny, double nz) {
+            return Math.abs(view.lightDirection.z);
+        }
+
+        boolean isUniform() {
+            return true;
+        }
+    };
+
+    private static class Ambient extends LightModel {
+        private final double intensity;
+
+        private Ambient(double intensity) {
+            this.intensity = intensity;
+        }
+
+        public double intensity(View view, double nx, double ny, double nz) {
+            return this.intensity;
+        }
+
+        boolean isUniform() {
+            return true;
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof Ambient &&
+                    Double.compare(((Ambient) other).intensity, this.intensity) == 0;
+        }
+
+        public int hashCode() {
+            return Double.valueOf(this.intensity).hashCode();
+        }
+    }
+
+    private static class Directional extends LightModel {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double strength;
+
+        private Directional(Vector3 direction, double strength) {
+            Vector3 unit = direction.unit();
+            this.x = unit.x;
+            this.y = unit.y;
+            this.z = unit.z;
+            this.strength = strength;
+        }
+
+        public double intensity(View view, double nx, double ny, double nz) {
+            return this.strength * Math.max(0.0D, nx * this.x + ny * this.y + nz * this.z);
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof Directional)) {
+                return false;
+            }
+
+            Directional light = (Directional) other;
+            return Double.compare(light.x, this.x) == 0 &&
+                    Double.compare(light.y, this.y) == 0 &&
+                    Double.compare(light.z, this.z) == 0 &&
+                    Double.compare(light.strength, this.strength) == 0;
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(new double[]{this.x, this.y, this.z, this.strength});
+        }
+    }
+
+    private static class Combined extends LightModel {
+        private final LightModel[] lights;
+
+        private Combined(LightModel[] lights) {
+            this.lights = lights.clone();
+        }
+
+        public double intensity(View view, double nx, double ny, double nz) {
+            double sum = 0.0D;
+            for (LightModel light : this.lights) {
+                sum += light.intensity(view, nx, ny, nz);
+            }
+
+            return sum;
+        }
+
+        boolean isUniform() {
+            for (LightModel light : this.lights) {
+                if (!light.isUniform()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public boolean equals(Object other) {
+            return other instanceof Combined &&
+                    Arrays.equals(((Combined) other).lights, this.lights);
+        }
+
+        public int hashCode() {
+            return Arrays.hashCode(this.lights);
+        }
+    }
+
+    public static LightModel ambient(double intensity) {
+        return new Ambient(intensity);
+    }
+
+    // direction points from the faces towards the light, in camera space
+    public static LightModel directional(Vector3 direction) {
+        return new Directional(direction, 1.0D);
+    }
+
+    public static LightModel directional(Vector3 direction, double strength) {
+        return new Directional(direction, strength);
+    }
+
+    // sums the intensities of several lights; the shader clamps the total
+    public static LightModel combine(LightModel... lights) {
+        return new Combined(lights);
+    }
+
+    // intensity for a front face with the given unit normal, which is in
+    // camera space and points towards the eye
+    public abstract double intensity(View view, double nx, double ny, double nz);
+
+    // uniform models are evaluated once per frame instead of once per face
+    boolean isUniform() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+public class MappedMesh {
+    private final DoubleBuffer coordinates;
+    private final IntBuffer faceOffsets;
+    private final IntBuffer faceLengths;
+    private final IntBuffer colors;
+    private final int vertexCount;
+    private final int faceCount;
+
+    MappedMesh(DoubleBuffer coordinates, IntBuffer faceOffsets, IntBuffer faceLengths, IntBuffer colors, int vertexCount, int faceCount) {
+        this.coordinates = coordinates;
+        this.faceOffsets = faceOffsets;
+        this.faceLengths = faceLengths;
+        this.colors = colors;
+        this.vertexCount = vertexCount;
+        this.faceCount = faceCount;
+    }
+
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    public int getFaceCount() {
+        return this.faceCount;
+    }
+
+    public int getFaceOffset(int face) {
+        return this.faceOffsets.get(face);
+    }
+
+    public int getFaceLength(int face) {
+        return this.faceLengths.get(face);
+    }
+
+    public int getColor(int face) {
+        return this.colors.get(face);
+    }
+
+    public double getX(int vertex) {
+        return this.coordinates.get(3 * vertex);
+    }
+
+    public double getY(int vertex) {
+        return this.coordinates.get(3 * vertex + 1);
+    }
+
+    public double getZ(int vertex) {
+        return this.coordinates.get(3 * vertex + 2);
+    }
+
+    public Face getFace(int face) {
+        int offset = getFaceOffset(face);
+        Vector3[] vertices = new Vector3[getFaceLength(face)];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new Vector3(getX(offset + i), getY(offset + i), getZ(offset + i));
+        }
+
+        return new Face(vertices, new Color(getColor(face), true));
+    }
+
+    public Mesh toMesh() {
+        Face[] faces = new Face[this.faceCount];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = getFace(i);
+        }
+
+        return new Mesh(faces);
+    }
+
+    public PackedMesh toPackedMesh() {
+        return toPackedMesh(new PackedMesh(this.vertexCount, this.faceCount));
+    }
+
+    public PackedMesh toPackedMesh(PackedMesh destination) {
+        destination.clear();
+        destination.ensureCapacity(this.vertexCount, this.faceCount);
+
+        this.coordinates.duplicate().get(destination.coordinates, 0, 3 * this.vertexCount);
+        this.faceOffsets.duplicate().get(destination.faceOffsets, 0, this.faceCount);
+        this.faceLengths.duplicate().get(destination.faceLengths, 0, this.faceCount);
+        this.colors.duplicate().get(destination.colors, 0, this.faceCount);
+        destination.vertexCount = this.vertexCount;
+        destination.faceCount = this.faceCount;
+
+        return destination;
+    }
+}
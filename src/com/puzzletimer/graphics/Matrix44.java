@@ -1,83 +1,58 @@
 package com.puzzletimer.graphics;
 
 public class Matrix44 {
-    public final double[][] values;
+    // row-major, laid out like MutableMatrix44; never handed out, so the
+    // matrix cannot change after construction
+    final double[] values;
 
     public Matrix44(double[][] matrix) {
-        this.values = matrix;
-    }
-
-    public Matrix44 mul(Matrix44 m) {
-        double[][] vals = new double[4][4];
-
+        this.values = new double[16];
         for (int i = 0; i < 4; i++) {
             for (int j = 0; j < 4; j++) {
-                vals[i][j] = 0.0D;
-                for (int k = 0; k < 4; k++) {
-                    vals[i][j] += this.values[i][k] * m.values[k][j];
-                }
+                this.values[4 * i + j] = matrix[i][j];
             }
         }
+    }
+
+    // takes ownership of values
+    Matrix44(double[] values) {
+        this.values = values;
+    }
 
-        return new Matrix44(vals);
+    public double get(int row, int column) {
+        return this.values[4 * row + column];
+    }
+
+    public Matrix44 mul(Matrix44 m) {
+        return new Matrix44(new MutableMatrix44().mul(new MutableMatrix44(this.values), new MutableMatrix44(m.values)).values);
     }
 
     public Vector3 mul(Vector3 v) {
-        return new Vector3(
-                this.values[0][0] * v.x + this.values[0][1] * v.y + this.values[0][2] * v.z + this.values[0][3],
-                this.values[1][0] * v.x + this.values[1][1] * v.y + this.values[1][2] * v.z + this.values[1][3],
-                this.values[2][0] * v.x + this.values[2][1] * v.y + this.values[2][2] * v.z + this.values[2][3]);
+        return new MutableMatrix44(this.values).mul(v);
     }
 
     public static Matrix44 translation(Vector3 v) {
-        return new Matrix44(
-                new double[][]{
-                        {1.0D, 0.0D, 0.0D, v.x},
-                        {0.0D, 1.0D, 0.0D, v.y},
-                        {0.0D, 0.0D, 1.0D, v.z},
-                        {0.0D, 0.0D, 0.0D, 1.0D}});
+        return new MutableMatrix44().setTranslation(v.x, v.y, v.z).toMatrix44();
     }
 
     public static Matrix44 rotationX(double a) {
-        return new Matrix44(
-                new double[][]{
-                        {1.0D, 0.0D, 0.0D, 0.0D},
-                        {0.0D, Math.cos(a), Math.sin(a), 0.0D},
-                        {0.0D, -Math.sin(a), Math.cos(a), 0.0D},
-                        {0.0D, 0.0D, 0.0D, 1.0D}});
+        return new MutableMatrix44().setRotationX(a).toMatrix44();
     }
 
     public static Matrix44 rotationY(double a) {
-        return new Matrix44(
-                new double[][]{
-                        {Math.cos(a), 0.0D, -Math.sin(a), 0.0D},
-                        {0.0D, 1.0D, 0.0D, 0.0D},
-                        {Math.sin(a), 0.0D, Math.cos(a), 0.0D},
-                        {0.0D, 0.0D, 0.0D, 1.0D}});
+        return new MutableMatrix44().setRotationY(a).toMatrix44();
     }
 
     public static Matrix44 rotationZ(double a) {
-        return new Matrix44(
-                new double[][]{
-                        {Math.cos(a), Math.sin(a), 0.0D, 0.0D},
-                        {-Math.sin(a), Math.cos(a), 0.0D, 0.0D},
-                        {0.0D, 0.0D, 1.0D, 0.0D},
-                        {0.0D, 0.0D, 0.0D, 1.0D}});
+        return new MutableMatrix44().setRotationZ(a).toMatrix44();
     }
 
-    public static Matrix44 rotation(Vector3 v, double a) {
-        double c = Math.cos(a);
-        double s = Math.sin(a);
-        double x = v.x;
-        double y = v.y;
-        double z = v.z;
+    public static Matrix44 rotationXYZ(double ax, double ay, double az) {
+        return new MutableMatrix44().setRotationXYZ(ax, ay, az).toMatrix44();
+    }
 
-        return new Matrix44(
-                new double[][]{
-                        {1.0D + (1.0D - c) * (x * x - 1.0D), -z * s + (1.0D - c) * x * y, y * s + (1.0D - c) * x * z, 0.0D},
-                        {z * s + (1.0D - c) * x * y, 1.0D + (1.0D - c) * (y * y - 1.0D), -x * s + (1.0D - c) * y * z, 0.0D},
-                        {-y * s + (1.0D - c) * x * z, x * s + (1.0D - c) * y * z, 1.0D + (1.0D - c) * (z * z - 1.0D), 0.0D},
-                        {0.0D, 0.0D, 0.0D, 1.0D}});
+    public static Matrix44 rotation(Vector3 v, double a) {
+        return new MutableMatrix44().setRotation(v.x, v.y, v.z, a).toMatrix44();
     }
 }
 
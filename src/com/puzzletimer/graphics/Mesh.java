@@ -12,15 +12,22 @@ public class Mesh {
     }
 
     public Mesh transform(Matrix44 matrix) {
+        long start = Instrumentation.start();
+
         Face[] faces = new Face[this.faces.length];
         for (int i = 0; i < faces.length; i++) {
             faces[i] = this.faces[i].transform(matrix);
         }
 
-        return new Mesh(faces);
+        Mesh mesh = new Mesh(faces);
+        Instrumentation.record(Instrumentation.Operation.MESH_TRANSFORM, start);
+
+        return mesh;
     }
 
     public Mesh rotateHalfspace(Plane plane, double angle) {
+        long start = Instrumentation.start();
+
         Matrix44 matrix = Matrix44.rotation(plane.n, angle);
 
         Face[] faces = new Face[this.faces.length];
@@ -31,7 +38,10 @@ public class Mesh {
             }
         }
 
-        return new Mesh(faces);
+        Mesh mesh = new Mesh(faces);
+        Instrumentation.record(Instrumentation.Operation.MESH_ROTATE_HALFSPACE, start);
+
+        return mesh;
     }
 
     public Mesh shortenFaces(double length) {
@@ -53,6 +63,15 @@ public class Mesh {
     }
 
     public Mesh clip(Plane plane) {
+        long start = Instrumentation.start();
+        Mesh mesh = clipFaces(plane);
+        Instrumentation.record(Instrumentation.Operation.MESH_CLIP, start);
+
+        return mesh;
+    }
+
+    // uninstrumented, so the clips of a cut are only counted as the cut
+    private Mesh clipFaces(Plane plane) {
         List<Face> faces = new ArrayList<Face>();
         for (Face face1 : this.faces) {
             Face face = face1.clip(plane);
@@ -68,10 +87,60 @@ public class Mesh {
     }
 
     public Mesh cut(Plane plane, double width) {
-        Mesh front = clip(new Plane(plane.p.add(plane.n.mul(width / 2.0D)), plane.n));
-        Mesh back = clip(new Plane(plane.p.sub(plane.n.mul(width / 2.0D)), plane.n.neg()));
+        long start = Instrumentation.start();
 
-        return front.union(back);
+        Mesh front = clipFaces(new Plane(plane.p.add(plane.n.mul(width / 2.0D)), plane.n));
+        Mesh back = clipFaces(new Plane(plane.p.sub(plane.n.mul(width / 2.0D)), plane.n.neg()));
+
+        Mesh mesh = front.union(back);
+        Instrumentation.record(Instrumentation.Operation.MESH_CUT, start);
+
+        return mesh;
+    }
+
+    public Mesh cutAll(Plane[] planes, double width) {
+        long start = Instrumentation.start();
+
+        Plane[] fronts = new Plane[planes.length];
+        Plane[] backs = new Plane[planes.length];
+        for (int i = 0; i < planes.length; i++) {
+            fronts[i] = new Plane(planes[i].p.add(planes[i].n.mul(width / 2.0D)), planes[i].n);
+            backs[i] = new Plane(planes[i].p.sub(planes[i].n.mul(width / 2.0D)), planes[i].n.neg());
+        }
+
+        List<Face> faces = new ArrayList<Face>();
+        for (Face face : this.faces) {
+            cut(face, fronts, backs, 0, faces);
+        }
+
+        Face[] facesArray = new Face[faces.size()];
+        faces.toArray(facesArray);
+
+        Mesh mesh = new Mesh(facesArray);
+        Instrumentation.record(Instrumentation.Operation.MESH_CUT, start);
+
+        return mesh;
+    }
+
+    private static void cut(Face face, Plane[] fronts, Plane[] backs, int plane, List<Face> faces) {
+        if (face.vertices.length == 0) {
+            return;
+        }
+
+        if (plane == fronts.length) {
+            faces.add(face);
+            return;
+        }
+
+        int front = face.side(fronts[plane]);
+        if (front != Face.BACK) {
+            cut(front == Face.FRONT ? face : face.clip(fronts[plane]), fronts, backs, plane + 1, faces);
+        }
+
+        int back = face.side(backs[plane]);
+        if (back != Face.BACK) {
+            cut(back == Face.FRONT ? face : face.clip(backs[plane]), fronts, backs, plane + 1, faces);
+        }
     }
 
     public Mesh union(Mesh mesh) {
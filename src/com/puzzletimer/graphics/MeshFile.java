@@ -0,0 +1,169 @@
+package com.puzzletimer.graphics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+public class MeshFile {
+    public static final int MAGIC = 0x464d4750;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private MeshFile() {
+    }
+
+    public static void write(Mesh mesh, File file) throws IOException {
+        write(PackedMesh.fromMesh(mesh), file);
+    }
+
+    public static void write(PackedMesh mesh, File file) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            write(mesh, output);
+        } finally {
+            output.close();
+        }
+    }
+
+    public static void write(Mesh mesh, OutputStream output) throws IOException {
+        write(PackedMesh.fromMesh(mesh), output);
+    }
+
+    public static void write(PackedMesh mesh, OutputStream output) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(output);
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(mesh.faceCount);
+        buffer.putInt(mesh.vertexCount);
+        while (buffer.position() < HEADER_SIZE) {
+            buffer.put((byte) 0);
+        }
+
+        for (int i = 0; i < 3 * mesh.vertexCount; i++) {
+            if (buffer.remaining() < 8) {
+                flush(buffer, channel);
+            }
+
+            buffer.putDouble(mesh.coordinates[i]);
+        }
+
+        int[][] blocks = {mesh.faceOffsets, mesh.faceLengths, mesh.colors};
+        for (int[] block : blocks) {
+            for (int i = 0; i < mesh.faceCount; i++) {
+                if (buffer.remaining() < 4) {
+                    flush(buffer, channel);
+                }
+
+                buffer.putInt(block[i]);
+            }
+        }
+
+        flush(buffer, channel);
+        output.flush();
+    }
+
+    private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    public static MappedMesh map(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("mesh file too large");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return map(buffer);
+        } finally {
+            input.close();
+        }
+    }
+
+    public static MappedMesh map(ByteBuffer buffer) throws IOException {
+        buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IOException("truncated mesh file header");
+        }
+
+        int start = buffer.position();
+        if (buffer.getInt(start) != MAGIC) {
+            throw new IOException("not a mesh file");
+        }
+
+        int version = buffer.getInt(start + 4);
+        if (version != VERSION) {
+            throw new IOException("unsupported mesh file version " + version);
+        }
+
+        int faceCount = buffer.getInt(start + 8);
+        int vertexCount = buffer.getInt(start + 12);
+        if (faceCount < 0 || vertexCount < 0) {
+            throw new IOException("corrupt mesh file header");
+        }
+
+        long vertexBytes = 24L * vertexCount;
+        long faceBytes = 4L * faceCount;
+        if (buffer.remaining() < HEADER_SIZE + vertexBytes + 3 * faceBytes) {
+            throw new IOException("truncated mesh file");
+        }
+
+        int position = start + HEADER_SIZE;
+        buffer.position(position);
+        buffer.limit(position + (int) vertexBytes);
+        ByteBuffer vertices = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        position += (int) vertexBytes;
+        ByteBuffer[] blocks = new ByteBuffer[3];
+        for (int i = 0; i < blocks.length; i++) {
+            buffer.limit(position + (int) faceBytes);
+            buffer.position(position);
+            blocks[i] = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            position += (int) faceBytes;
+        }
+
+        // a corrupt body must fail here with an IOException, not later with
+        // an index exception from MappedMesh
+        IntBuffer offsets = blocks[0].asIntBuffer();
+        IntBuffer lengths = blocks[1].asIntBuffer();
+        for (int i = 0; i < faceCount; i++) {
+            int offset = offsets.get(i);
+            int length = lengths.get(i);
+            if (offset < 0 || length < 0 || (long) offset + length > vertexCount) {
+                throw new IOException("corrupt mesh file: face " + i + " is out of bounds");
+            }
+        }
+
+        return new MappedMesh(
+                vertices.asDoubleBuffer(),
+                offsets,
+                lengths,
+                blocks[2].asIntBuffer(),
+                vertexCount,
+                faceCount);
+    }
+
+    public static Mesh read(File file) throws IOException {
+        return map(file).toMesh();
+    }
+}
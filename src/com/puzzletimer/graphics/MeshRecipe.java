@@ -0,0 +1,257 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+public class MeshRecipe {
+    // part of every key; bump it whenever a Mesh operation changes its
+    // output, so meshes persisted by an older build are not reused
+    public static final int GEOMETRY_VERSION = 2;
+
+    public enum Solid {
+        CUBE,
+        TETRAHEDRON,
+        DODECAHEDRON
+    }
+
+    private static abstract class Operation {
+        abstract Mesh apply(Mesh mesh);
+
+        abstract void describe(StringBuilder description);
+    }
+
+    public final Solid solid;
+    private final Color[] colors;
+    private final Operation[] operations;
+    private String key;
+
+    private MeshRecipe(Solid solid, Color[] colors, Operation[] operations) {
+        this.solid = solid;
+        this.colors = colors;
+        this.operations = operations;
+        this.key = null;
+    }
+
+    public static MeshRecipe cube(Color[] colors) {
+        return new MeshRecipe(Solid.CUBE, colors.clone(), new Operation[0]);
+    }
+
+    public static MeshRecipe tetrahedron(Color[] colors) {
+        return new MeshRecipe(Solid.TETRAHEDRON, colors.clone(), new Operation[0]);
+    }
+
+    public static MeshRecipe dodecahedron(Color[] colors) {
+        return new MeshRecipe(Solid.DODECAHEDRON, colors.clone(), new Operation[0]);
+    }
+
+    public MeshRecipe cut(Plane plane, final double width) {
+        final Plane copy = copy(plane);
+
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.cut(copy, width);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("cut");
+                append(description, copy);
+                append(description, width);
+            }
+        });
+    }
+
+    public MeshRecipe cutAll(Plane[] planes, final double width) {
+        final Plane[] copies = new Plane[planes.length];
+        for (int i = 0; i < planes.length; i++) {
+            copies[i] = copy(planes[i]);
+        }
+
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.cutAll(copies, width);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("cutAll");
+                for (Plane plane : copies) {
+                    append(description, plane);
+                }
+
+                append(description, width);
+            }
+        });
+    }
+
+    public MeshRecipe clip(Plane plane) {
+        final Plane copy = copy(plane);
+
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.clip(copy);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("clip");
+                append(description, copy);
+            }
+        });
+    }
+
+    public MeshRecipe shortenFaces(final double length) {
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.shortenFaces(length);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("shorten");
+                append(description, length);
+            }
+        });
+    }
+
+    public MeshRecipe softenFaces(final double length) {
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.softenFaces(length);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("soften");
+                append(description, length);
+            }
+        });
+    }
+
+    public MeshRecipe transform(final Matrix44 matrix) {
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.transform(matrix);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("transform");
+                for (int i = 0; i < 4; i++) {
+                    for (int j = 0; j < 4; j++) {
+                        append(description, matrix.get(i, j));
+                    }
+                }
+            }
+        });
+    }
+
+    public MeshRecipe rotateHalfspace(Plane plane, final double angle) {
+        final Plane copy = copy(plane);
+
+        return add(new Operation() {
+            Mesh apply(Mesh mesh) {
+                return mesh.rotateHalfspace(copy, angle);
+            }
+
+            void describe(StringBuilder description) {
+                description.append("rotateHalfspace");
+                append(description, copy);
+                append(description, angle);
+            }
+        });
+    }
+
+    private MeshRecipe add(Operation operation) {
+        Operation[] operations = Arrays.copyOf(this.operations, this.operations.length + 1);
+        operations[this.operations.length] = operation;
+
+        return new MeshRecipe(this.solid, this.colors, operations);
+    }
+
+    public Mesh build() {
+        return GeometryCache.getDefault().get(this);
+    }
+
+    public Mesh compute() {
+        Mesh mesh;
+        switch (this.solid) {
+            case CUBE:
+                mesh = Mesh.cube(this.colors);
+                break;
+            case TETRAHEDRON:
+                mesh = Mesh.tetrahedron(this.colors);
+                break;
+            default:
+                mesh = Mesh.dodecahedron(this.colors);
+                break;
+        }
+
+        for (Operation operation : this.operations) {
+            mesh = operation.apply(mesh);
+        }
+
+        return mesh;
+    }
+
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        description.append(this.solid.name().toLowerCase());
+        for (Color color : this.colors) {
+            description.append(' ').append(Integer.toHexString(color.getRGB()));
+        }
+
+        for (Operation operation : this.operations) {
+            description.append(';');
+            operation.describe(description);
+        }
+
+        return description.toString();
+    }
+
+    public synchronized String key() {
+        if (this.key == null) {
+            try {
+                String versioned = "geometry " + GEOMETRY_VERSION + " file " + MeshFile.VERSION + ";" + describe();
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest(versioned.getBytes("UTF-8"));
+
+                StringBuilder key = new StringBuilder();
+                for (byte b : digest) {
+                    key.append(Character.forDigit((b >> 4) & 0xf, 16));
+                    key.append(Character.forDigit(b & 0xf, 16));
+                }
+
+                this.key = key.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return this.key;
+    }
+
+    public boolean equals(Object o) {
+        return o instanceof MeshRecipe && key().equals(((MeshRecipe) o).key());
+    }
+
+    public int hashCode() {
+        return key().hashCode();
+    }
+
+    // Plane fields are mutable; the recipe must not change after its key is taken
+    private static Plane copy(Plane plane) {
+        return new Plane(plane.p, plane.n);
+    }
+
+    private static void append(StringBuilder description, Plane plane) {
+        append(description, plane.p.x);
+        append(description, plane.p.y);
+        append(description, plane.p.z);
+        append(description, plane.n.x);
+        append(description, plane.n.y);
+        append(description, plane.n.z);
+    }
+
+    private static void append(StringBuilder description, double value) {
+        description.append(' ').append(Long.toHexString(Double.doubleToLongBits(value)));
+    }
+}
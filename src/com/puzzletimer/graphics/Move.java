@@ -0,0 +1,11 @@
+package com.puzzletimer.graphics;
+
+public class Move {
+    public final Plane plane;
+    public final double angle;
+
+    public Move(Plane plane, double angle) {
+        this.plane = plane;
+        this.angle = angle;
+    }
+}
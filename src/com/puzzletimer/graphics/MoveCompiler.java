@@ -0,0 +1,130 @@
+package com.puzzletimer.graphics;
+
+import java.util.List;
+
+public class MoveCompiler {
+    private final Mesh mesh;
+    private final double[] initialCentroids;
+    private final double[] centroids;
+    private final double[] matrices;
+    private final boolean[] moved;
+    private final MutableMatrix44 rotation;
+
+    public MoveCompiler(Mesh mesh) {
+        this.mesh = mesh;
+        this.initialCentroids = new double[3 * mesh.faces.length];
+        this.centroids = new double[3 * mesh.faces.length];
+        this.matrices = new double[12 * mesh.faces.length];
+        this.moved = new boolean[mesh.faces.length];
+        this.rotation = new MutableMatrix44();
+
+        for (int i = 0; i < mesh.faces.length; i++) {
+            Vector3 centroid = mesh.faces[i].centroid();
+            this.initialCentroids[3 * i] = centroid.x;
+            this.initialCentroids[3 * i + 1] = centroid.y;
+            this.initialCentroids[3 * i + 2] = centroid.z;
+        }
+
+        reset();
+    }
+
+    public static Mesh apply(Mesh mesh, List<Move> moves) {
+        return new MoveCompiler(mesh).apply(moves).getMesh();
+    }
+
+    public MoveCompiler reset() {
+        System.arraycopy(this.initialCentroids, 0, this.centroids, 0, this.centroids.length);
+        for (int i = 0; i < this.moved.length; i++) {
+            int k = 12 * i;
+            for (int j = 0; j < 12; j++) {
+                this.matrices[k + j] = 0.0D;
+            }
+
+            this.matrices[k] = 1.0D;
+            this.matrices[k + 5] = 1.0D;
+            this.matrices[k + 10] = 1.0D;
+            this.moved[i] = false;
+        }
+
+        return this;
+    }
+
+    public MoveCompiler apply(List<Move> moves) {
+        for (Move move : moves) {
+            apply(move.plane, move.angle);
+        }
+
+        return this;
+    }
+
+    public MoveCompiler apply(Move move) {
+        return apply(move.plane, move.angle);
+    }
+
+    public MoveCompiler apply(Plane plane, double angle) {
+        long start = Instrumentation.start();
+
+        double[] r = this.rotation.setRotation(plane.n.x, plane.n.y, plane.n.z, angle).values;
+
+        for (int i = 0; i < this.moved.length; i++) {
+            int c = 3 * i;
+            double x = this.centroids[c];
+            double y = this.centroids[c + 1];
+            double z = this.centroids[c + 2];
+            if ((x - plane.p.x) * plane.n.x + (y - plane.p.y) * plane.n.y + (z - plane.p.z) * plane.n.z < 0.0D) {
+                continue;
+            }
+
+            this.centroids[c] = r[0] * x + r[1] * y + r[2] * z;
+            this.centroids[c + 1] = r[4] * x + r[5] * y + r[6] * z;
+            this.centroids[c + 2] = r[8] * x + r[9] * y + r[10] * z;
+
+            int k = 12 * i;
+            for (int j = 0; j < 4; j++) {
+                double m0 = this.matrices[k + j];
+                double m1 = this.matrices[k + 4 + j];
+                double m2 = this.matrices[k + 8 + j];
+                this.matrices[k + j] = r[0] * m0 + r[1] * m1 + r[2] * m2;
+                this.matrices[k + 4 + j] = r[4] * m0 + r[5] * m1 + r[6] * m2;
+                this.matrices[k + 8 + j] = r[8] * m0 + r[9] * m1 + r[10] * m2;
+            }
+
+            this.moved[i] = true;
+        }
+
+        Instrumentation.record(Instrumentation.Operation.MOVE_APPLY, start);
+
+        return this;
+    }
+
+    public Mesh getMesh() {
+        long start = Instrumentation.start();
+
+        Face[] faces = new Face[this.moved.length];
+        for (int i = 0; i < faces.length; i++) {
+            Face face = this.mesh.faces[i];
+            if (!this.moved[i]) {
+                faces[i] = face;
+                continue;
+            }
+
+            double[] m = this.matrices;
+            int k = 12 * i;
+            Vector3[] vertices = new Vector3[face.vertices.length];
+            for (int j = 0; j < vertices.length; j++) {
+                Vector3 v = face.vertices[j];
+                vertices[j] = new Vector3(
+                        m[k] * v.x + m[k + 1] * v.y + m[k + 2] * v.z + m[k + 3],
+                        m[k + 4] * v.x + m[k + 5] * v.y + m[k + 6] * v.z + m[k + 7],
+                        m[k + 8] * v.x + m[k + 9] * v.y + m[k + 10] * v.z + m[k + 11]);
+            }
+
+            faces[i] = face.setVertices(vertices);
+        }
+
+        Mesh mesh = new Mesh(faces);
+        Instrumentation.record(Instrumentation.Operation.MOVE_MATERIALIZE, start);
+
+        return mesh;
+    }
+}
@@ -0,0 +1,244 @@
+package com.puzzletimer.graphics;
+
+public class MutableMatrix44 {
+    public final double[] values;
+
+    public MutableMatrix44() {
+        this.values = new double[16];
+        setIdentity();
+    }
+
+    public MutableMatrix44(Matrix44 matrix) {
+        this.values = matrix.values.clone();
+    }
+
+    // wraps values without copying them
+    MutableMatrix44(double[] values) {
+        this.values = values;
+    }
+
+    public MutableMatrix44 setIdentity() {
+        return set(
+                1.0D, 0.0D, 0.0D, 0.0D,
+                0.0D, 1.0D, 0.0D, 0.0D,
+                0.0D, 0.0D, 1.0D, 0.0D);
+    }
+
+    public MutableMatrix44 set(
+            double m00, double m01, double m02, double m03,
+            double m10, double m11, double m12, double m13,
+            double m20, double m21, double m22, double m23) {
+        double[] m = this.values;
+        m[0] = m00;
+        m[1] = m01;
+        m[2] = m02;
+        m[3] = m03;
+        m[4] = m10;
+        m[5] = m11;
+        m[6] = m12;
+        m[7] = m13;
+        m[8] = m20;
+        m[9] = m21;
+        m[10] = m22;
+        m[11] = m23;
+        m[12] = 0.0D;
+        m[13] = 0.0D;
+        m[14] = 0.0D;
+        m[15] = 1.0D;
+
+        return this;
+    }
+
+    public MutableMatrix44 set(MutableMatrix44 matrix) {
+        System.arraycopy(matrix.values, 0, this.values, 0, 16);
+
+        return this;
+    }
+
+    public MutableMatrix44 set(Matrix44 matrix) {
+        System.arraycopy(matrix.values, 0, this.values, 0, 16);
+
+        return this;
+    }
+
+    public Matrix44 toMatrix44() {
+        return new Matrix44(this.values.clone());
+    }
+
+    public MutableMatrix44 setTranslation(double x, double y, double z) {
+        return set(
+                1.0D, 0.0D, 0.0D, x,
+                0.0D, 1.0D, 0.0D, y,
+                0.0D, 0.0D, 1.0D, z);
+    }
+
+    public MutableMatrix44 setRotationX(double a) {
+        double c = Math.cos(a);
+        double s = Math.sin(a);
+
+        return set(
+                1.0D, 0.0D, 0.0D, 0.0D,
+                0.0D, c, s, 0.0D,
+                0.0D, -s, c, 0.0D);
+    }
+
+    public MutableMatrix44 setRotationY(double a) {
+        double c = Math.cos(a);
+        double s = Math.sin(a);
+
+        return set(
+                c, 0.0D, -s, 0.0D,
+                0.0D, 1.0D, 0.0D, 0.0D,
+                s, 0.0D, c, 0.0D);
+    }
+
+    public MutableMatrix44 setRotationZ(double a) {
+        double c = Math.cos(a);
+        double s = Math.sin(a);
+
+        return set(
+                c, s, 0.0D, 0.0D,
+                -s, c, 0.0D, 0.0D,
+                0.0D, 0.0D, 1.0D, 0.0D);
+    }
+
+    public MutableMatrix44 setRotation(double x, double y, double z, double a) {
+        double c = Math.cos(a);
+        double s = Math.sin(a);
+
+        return set(
+                1.0D + (1.0D - c) * (x * x - 1.0D), -z * s + (1.0D - c) * x * y, y * s + (1.0D - c) * x * z, 0.0D,
+                z * s + (1.0D - c) * x * y, 1.0D + (1.0D - c) * (y * y - 1.0D), -x * s + (1.0D - c) * y * z, 0.0D,
+                -y * s + (1.0D - c) * x * z, x * s + (1.0D - c) * y * z, 1.0D + (1.0D - c) * (z * z - 1.0D), 0.0D);
+    }
+
+    public MutableMatrix44 setRotationXYZ(double ax, double ay, double az) {
+        double cx = Math.cos(ax);
+        double sx = Math.sin(ax);
+        double cy = Math.cos(ay);
+        double sy = Math.sin(ay);
+        double cz = Math.cos(az);
+        double sz = Math.sin(az);
+
+        return set(
+                cy * cz, cy * sz, -sy, 0.0D,
+                -cx * sz + sx * sy * cz, cx * cz + sx * sy * sz, sx * cy, 0.0D,
+                sx * sz + cx * sy * cz, -sx * cz + cx * sy * sz, cx * cy, 0.0D);
+    }
+
+    public MutableMatrix44 mul(MutableMatrix44 m) {
+        return mul(this, m);
+    }
+
+    public MutableMatrix44 mul(MutableMatrix44 a, MutableMatrix44 b) {
+        double[] x = a.values;
+        double[] y = b.values;
+
+        double m00 = x[0] * y[0] + x[1] * y[4] + x[2] * y[8] + x[3] * y[12];
+        double m01 = x[0] * y[1] + x[1] * y[5] + x[2] * y[9] + x[3] * y[13];
+        double m02 = x[0] * y[2] + x[1] * y[6] + x[2] * y[10] + x[3] * y[14];
+        double m03 = x[0] * y[3] + x[1] * y[7] + x[2] * y[11] + x[3] * y[15];
+        double m10 = x[4] * y[0] + x[5] * y[4] + x[6] * y[8] + x[7] * y[12];
+        double m11 = x[4] * y[1] + x[5] * y[5] + x[6] * y[9] + x[7] * y[13];
+        double m12 = x[4] * y[2] + x[5] * y[6] + x[6] * y[10] + x[7] * y[14];
+        double m13 = x[4] * y[3] + x[5] * y[7] + x[6] * y[11] + x[7] * y[15];
+        double m20 = x[8] * y[0] + x[9] * y[4] + x[10] * y[8] + x[11] * y[12];
+        double m21 = x[8] * y[1] + x[9] * y[5] + x[10] * y[9] + x[11] * y[13];
+        double m22 = x[8] * y[2] + x[9] * y[6] + x[10] * y[10] + x[11] * y[14];
+        double m23 = x[8] * y[3] + x[9] * y[7] + x[10] * y[11] + x[11] * y[15];
+        double m30 = x[12] * y[0] + x[13] * y[4] + x[14] * y[8] + x[15] * y[12];
+        double m31 = x[12] * y[1] + x[13] * y[5] + x[14] * y[9] + x[15] * y[13];
+        double m32 = x[12] * y[2] + x[13] * y[6] + x[14] * y[10] + x[15] * y[14];
+        double m33 = x[12] * y[3] + x[13] * y[7] + x[14] * y[11] + x[15] * y[15];
+
+        double[] m = this.values;
+        m[0] = m00;
+        m[1] = m01;
+        m[2] = m02;
+        m[3] = m03;
+        m[4] = m10;
+        m[5] = m11;
+        m[6] = m12;
+        m[7] = m13;
+        m[8] = m20;
+        m[9] = m21;
+        m[10] = m22;
+        m[11] = m23;
+        m[12] = m30;
+        m[13] = m31;
+        m[14] = m32;
+        m[15] = m33;
+
+        return this;
+    }
+
+    // inverse of an affine matrix (the bottom row is assumed to be 0 0 0 1)
+    public MutableMatrix44 setInverse(MutableMatrix44 matrix) {
+        double[] m = matrix.values;
+        double c00 = m[5] * m[10] - m[6] * m[9];
+        double c01 = m[2] * m[9] - m[1] * m[10];
+        double c02 = m[1] * m[6] - m[2] * m[5];
+        double c10 = m[6] * m[8] - m[4] * m[10];
+        double c11 = m[0] * m[10] - m[2] * m[8];
+        double c12 = m[2] * m[4] - m[0] * m[6];
+        double c20 = m[4] * m[9] - m[5] * m[8];
+        double c21 = m[1] * m[8] - m[0] * m[9];
+        double c22 = m[0] * m[5] - m[1] * m[4];
+
+        double determinant = m[0] * c00 + m[1] * c10 + m[2] * c20;
+        if (determinant == 0.0D) {
+            throw new IllegalArgumentException("matrix is singular");
+        }
+
+        double s = 1.0D / determinant;
+        double i00 = s * c00;
+        double i01 = s * c01;
+        double i02 = s * c02;
+        double i10 = s * c10;
+        double i11 = s * c11;
+        double i12 = s * c12;
+        double i20 = s * c20;
+        double i21 = s * c21;
+        double i22 = s * c22;
+
+        double tx = m[3];
+        double ty = m[7];
+        double tz = m[11];
+
+        return set(
+                i00, i01, i02, -(i00 * tx + i01 * ty + i02 * tz),
+                i10, i11, i12, -(i10 * tx + i11 * ty + i12 * tz),
+                i20, i21, i22, -(i20 * tx + i21 * ty + i22 * tz));
+    }
+
+    public MutableVector3 transform(MutableVector3 v, MutableVector3 result) {
+        double[] m = this.values;
+
+        return result.set(
+                m[0] * v.x + m[1] * v.y + m[2] * v.z + m[3],
+                m[4] * v.x + m[5] * v.y + m[6] * v.z + m[7],
+                m[8] * v.x + m[9] * v.y + m[10] * v.z + m[11]);
+    }
+
+    public MutableVector3 transform(Vector3 v, MutableVector3 result) {
+        double[] m = this.values;
+
+        return result.set(
+                m[0] * v.x + m[1] * v.y + m[2] * v.z + m[3],
+                m[4] * v.x + m[5] * v.y + m[6] * v.z + m[7],
+                m[8] * v.x + m[9] * v.y + m[10] * v.z + m[11]);
+    }
+
+    public Vector3 mul(Vector3 v) {
+        double[] m = this.values;
+
+        return new Vector3(
+                m[0] * v.x + m[1] * v.y + m[2] * v.z + m[3],
+                m[4] * v.x + m[5] * v.y + m[6] * v.z + m[7],
+                m[8] * v.x + m[9] * v.y + m[10] * v.z + m[11]);
+    }
+
+    public void transform(double[] source, int sourceOffset, double[] destination, int destinationOffset, int count) {
+        VertexKernel.getDefault().transform(this.values, source, sourceOffset, destination, destinationOffset, count);
+    }
+}
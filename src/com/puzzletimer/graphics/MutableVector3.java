@@ -0,0 +1,88 @@
+package com.puzzletimer.graphics;
+
+public class MutableVector3 {
+    public double x;
+    public double y;
+    public double z;
+
+    public MutableVector3() {
+        this(0.0D, 0.0D, 0.0D);
+    }
+
+    public MutableVector3(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public MutableVector3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+
+        return this;
+    }
+
+    public MutableVector3 set(Vector3 v) {
+        return set(v.x, v.y, v.z);
+    }
+
+    public MutableVector3 set(MutableVector3 v) {
+        return set(v.x, v.y, v.z);
+    }
+
+    public Vector3 toVector3() {
+        return new Vector3(this.x, this.y, this.z);
+    }
+
+    public MutableVector3 neg() {
+        return set(-this.x, -this.y, -this.z);
+    }
+
+    public MutableVector3 add(MutableVector3 v) {
+        return set(this.x + v.x, this.y + v.y, this.z + v.z);
+    }
+
+    public MutableVector3 add(Vector3 v) {
+        return set(this.x + v.x, this.y + v.y, this.z + v.z);
+    }
+
+    public MutableVector3 sub(MutableVector3 v) {
+        return set(this.x - v.x, this.y - v.y, this.z - v.z);
+    }
+
+    public MutableVector3 sub(Vector3 v) {
+        return set(this.x - v.x, this.y - v.y, this.z - v.z);
+    }
+
+    public MutableVector3 mul(double s) {
+        return set(s * this.x, s * this.y, s * this.z);
+    }
+
+    public MutableVector3 addScaled(MutableVector3 v, double s) {
+        return set(this.x + s * v.x, this.y + s * v.y, this.z + s * v.z);
+    }
+
+    public double dot(MutableVector3 v) {
+        return this.x * v.x + this.y * v.y + this.z * v.z;
+    }
+
+    public double dot(Vector3 v) {
+        return this.x * v.x + this.y * v.y + this.z * v.z;
+    }
+
+    public MutableVector3 cross(MutableVector3 v) {
+        return set(
+                this.y * v.z - this.z * v.y,
+                this.z * v.x - this.x * v.z,
+                this.x * v.y - this.y * v.x);
+    }
+
+    public double norm() {
+        return Math.sqrt(dot(this));
+    }
+
+    public MutableVector3 unit() {
+        return mul(1.0D / norm());
+    }
+}
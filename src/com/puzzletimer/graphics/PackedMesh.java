@@ -0,0 +1,390 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+
+public class PackedMesh {
+    private static final double EPSILON = 0.01D;
+    private static final int INSIDE = 0;
+    private static final int FRONT = 1;
+    private static final int BACK = 2;
+
+    public double[] coordinates;
+    public int[] faceOffsets;
+    public int[] faceLengths;
+    public int[] colors;
+    public int vertexCount;
+    public int faceCount;
+
+    private PackedMesh scratch;
+    private int[] positions;
+    private final double[] centroid = new double[3];
+    private final MutableMatrix44 matrix = new MutableMatrix44();
+
+    public PackedMesh() {
+        this(0, 0);
+    }
+
+    public PackedMesh(int vertexCapacity, int faceCapacity) {
+        this.coordinates = new double[3 * vertexCapacity];
+        this.faceOffsets = new int[faceCapacity];
+        this.faceLengths = new int[faceCapacity];
+        this.colors = new int[faceCapacity];
+        this.vertexCount = 0;
+        this.faceCount = 0;
+        this.positions = new int[0];
+    }
+
+    public static PackedMesh fromMesh(Mesh mesh) {
+        return fromMesh(mesh, new PackedMesh());
+    }
+
+    public static PackedMesh fromMesh(Mesh mesh, PackedMesh destination) {
+        int vertexCount = 0;
+        for (Face face : mesh.faces) {
+            vertexCount += face.vertices.length;
+        }
+
+        destination.clear();
+        destination.ensureCapacity(vertexCount, mesh.faces.length);
+        for (Face face : mesh.faces) {
+            destination.beginFace(face.color.getRGB());
+            for (Vector3 v : face.vertices) {
+                destination.addVertex(v.x, v.y, v.z);
+            }
+        }
+
+        return destination;
+    }
+
+    public Mesh toMesh() {
+        Face[] faces = new Face[this.faceCount];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = toFace(i);
+        }
+
+        return new Mesh(faces);
+    }
+
+    public Face toFace(int face) {
+        int offset = this.faceOffsets[face];
+        Vector3[] vertices = new Vector3[this.faceLengths[face]];
+        for (int i = 0; i < vertices.length; i++) {
+            int c = 3 * (offset + i);
+            vertices[i] = new Vector3(
+                    this.coordinates[c],
+                    this.coordinates[c + 1],
+                    this.coordinates[c + 2]);
+        }
+
+        return new Face(vertices, new Color(this.colors[face], true));
+    }
+
+    public void clear() {
+        this.vertexCount = 0;
+        this.faceCount = 0;
+    }
+
+    public void ensureCapacity(int vertexCapacity, int faceCapacity) {
+        if (this.coordinates.length < 3 * vertexCapacity) {
+            double[] coordinates = new double[Math.max(3 * vertexCapacity, 2 * this.coordinates.length)];
+            System.arraycopy(this.coordinates, 0, coordinates, 0, 3 * this.vertexCount);
+            this.coordinates = coordinates;
+        }
+
+        if (this.faceOffsets.length < faceCapacity) {
+            int capacity = Math.max(faceCapacity, 2 * this.faceOffsets.length);
+
+            int[] faceOffsets = new int[capacity];
+            System.arraycopy(this.faceOffsets, 0, faceOffsets, 0, this.faceCount);
+            this.faceOffsets = faceOffsets;
+
+            int[] faceLengths = new int[capacity];
+            System.arraycopy(this.faceLengths, 0, faceLengths, 0, this.faceCount);
+            this.faceLengths = faceLengths;
+
+            int[] colors = new int[capacity];
+            System.arraycopy(this.colors, 0, colors, 0, this.faceCount);
+            this.colors = colors;
+        }
+    }
+
+    public void beginFace(int color) {
+        ensureCapacity(this.vertexCount, this.faceCount + 1);
+        this.faceOffsets[this.faceCount] = this.vertexCount;
+        this.faceLengths[this.faceCount] = 0;
+        this.colors[this.faceCount] = color;
+        this.faceCount++;
+    }
+
+    public void addVertex(double x, double y, double z) {
+        ensureCapacity(this.vertexCount + 1, this.faceCount);
+        int c = 3 * this.vertexCount;
+        this.coordinates[c] = x;
+        this.coordinates[c + 1] = y;
+        this.coordinates[c + 2] = z;
+        this.vertexCount++;
+        this.faceLengths[this.faceCount - 1]++;
+    }
+
+    public PackedMesh copy() {
+        return new PackedMesh(this.vertexCount, this.faceCount).set(this);
+    }
+
+    public PackedMesh set(PackedMesh mesh) {
+        if (mesh != this) {
+            clear();
+            ensureCapacity(mesh.vertexCount, mesh.faceCount);
+            System.arraycopy(mesh.coordinates, 0, this.coordinates, 0, 3 * mesh.vertexCount);
+            System.arraycopy(mesh.faceOffsets, 0, this.faceOffsets, 0, mesh.faceCount);
+            System.arraycopy(mesh.faceLengths, 0, this.faceLengths, 0, mesh.faceCount);
+            System.arraycopy(mesh.colors, 0, this.colors, 0, mesh.faceCount);
+            this.vertexCount = mesh.vertexCount;
+            this.faceCount = mesh.faceCount;
+        }
+
+        return this;
+    }
+
+    public void centroid(int face, double[] result) {
+        int offset = this.faceOffsets[face];
+        int length = this.faceLengths[face];
+
+        double x = 0.0D;
+        double y = 0.0D;
+        double z = 0.0D;
+        for (int i = 0; i < length; i++) {
+            int c = 3 * (offset + i);
+            x += this.coordinates[c];
+            y += this.coordinates[c + 1];
+            z += this.coordinates[c + 2];
+        }
+
+        double s = 1.0D / length;
+        result[0] = s * x;
+        result[1] = s * y;
+        result[2] = s * z;
+    }
+
+    public PackedMesh transform(Matrix44 matrix) {
+        return transform(matrix, this);
+    }
+
+    public PackedMesh transform(Matrix44 matrix, PackedMesh destination) {
+        return transform(this.matrix.set(matrix), destination);
+    }
+
+    public PackedMesh transform(MutableMatrix44 matrix) {
+        return transform(matrix, this);
+    }
+
+    public PackedMesh transform(MutableMatrix44 matrix, PackedMesh destination) {
+        long start = Instrumentation.start();
+
+        destination.copyTopology(this);
+        matrix.transform(this.coordinates, 0, destination.coordinates, 0, this.vertexCount);
+
+        Instrumentation.record(Instrumentation.Operation.MESH_TRANSFORM, start);
+
+        return destination;
+    }
+
+    public PackedMesh rotateHalfspace(Plane plane, double angle) {
+        return rotateHalfspace(plane, angle, this);
+    }
+
+    public PackedMesh rotateHalfspace(Plane plane, double angle, PackedMesh destination) {
+        long start = Instrumentation.start();
+
+        MutableMatrix44 matrix = this.matrix.setRotation(plane.n.x, plane.n.y, plane.n.z, angle);
+        double[] centroid = this.centroid;
+
+        destination.copyTopology(this);
+        for (int i = 0; i < this.faceCount; i++) {
+            centroid(i, centroid);
+            double d = (centroid[0] - plane.p.x) * plane.n.x +
+                    (centroid[1] - plane.p.y) * plane.n.y +
+                    (centroid[2] - plane.p.z) * plane.n.z;
+
+            int offset = this.faceOffsets[i];
+            int length = this.faceLengths[i];
+            if (d >= 0.0D) {
+                matrix.transform(this.coordinates, offset, destination.coordinates, offset, length);
+            } else if (destination != this) {
+                System.arraycopy(this.coordinates, 3 * offset, destination.coordinates, 3 * offset, 3 * length);
+            }
+        }
+
+        Instrumentation.record(Instrumentation.Operation.MESH_ROTATE_HALFSPACE, start);
+
+        return destination;
+    }
+
+    public PackedMesh shortenFaces(double length) {
+        return shortenFaces(length, this);
+    }
+
+    public PackedMesh shortenFaces(double length, PackedMesh destination) {
+        double[] centroid = this.centroid;
+
+        destination.copyTopology(this);
+        for (int i = 0; i < this.faceCount; i++) {
+            centroid(i, centroid);
+
+            int offset = this.faceOffsets[i];
+            for (int j = 0; j < this.faceLengths[i]; j++) {
+                int c = 3 * (offset + j);
+                double x = this.coordinates[c];
+                double y = this.coordinates[c + 1];
+                double z = this.coordinates[c + 2];
+
+                double dx = x - centroid[0];
+                double dy = y - centroid[1];
+                double dz = z - centroid[2];
+                double s = length / Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+                destination.coordinates[c] = x - s * dx;
+                destination.coordinates[c + 1] = y - s * dy;
+                destination.coordinates[c + 2] = z - s * dz;
+            }
+        }
+
+        return destination;
+    }
+
+    public PackedMesh softenFaces(double length) {
+        return softenFaces(length, this);
+    }
+
+    public PackedMesh softenFaces(double length, PackedMesh destination) {
+        PackedMesh target = destination == this ? scratch() : destination;
+
+        target.clear();
+        target.ensureCapacity(2 * this.vertexCount, this.faceCount);
+        for (int i = 0; i < this.faceCount; i++) {
+            int offset = this.faceOffsets[i];
+            int n = this.faceLengths[i];
+
+            target.beginFace(this.colors[i]);
+            for (int j = 0; j < n; j++) {
+                int c1 = 3 * (offset + j);
+                int c2 = 3 * (offset + (j + 1) % n);
+                double x1 = this.coordinates[c1];
+                double y1 = this.coordinates[c1 + 1];
+                double z1 = this.coordinates[c1 + 2];
+                double dx = this.coordinates[c2] - x1;
+                double dy = this.coordinates[c2 + 1] - y1;
+                double dz = this.coordinates[c2 + 2] - z1;
+                double norm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+                if (norm > 2.0D * length) {
+                    double s = length / norm;
+                    target.addVertex(x1 + s * dx, y1 + s * dy, z1 + s * dz);
+                    target.addVertex(x1 + dx - s * dx, y1 + dy - s * dy, z1 + dz - s * dz);
+                } else {
+                    target.addVertex(x1 + 0.5D * dx, y1 + 0.5D * dy, z1 + 0.5D * dz);
+                }
+            }
+        }
+
+        return target == destination ? destination : destination.set(target);
+    }
+
+    public PackedMesh clip(Plane plane) {
+        return clip(plane, this);
+    }
+
+    public PackedMesh clip(Plane plane, PackedMesh destination) {
+        long start = Instrumentation.start();
+
+        PackedMesh target = destination == this ? scratch() : destination;
+        double nx = plane.n.x;
+        double ny = plane.n.y;
+        double nz = plane.n.z;
+        double pd = plane.p.x * nx + plane.p.y * ny + plane.p.z * nz;
+
+        target.clear();
+        target.ensureCapacity(this.vertexCount + this.faceCount, this.faceCount);
+        for (int i = 0; i < this.faceCount; i++) {
+            int offset = this.faceOffsets[i];
+            int n = this.faceLengths[i];
+
+            if (this.positions.length < n) {
+                this.positions = new int[2 * n];
+            }
+
+            boolean allFront = true;
+            boolean allBack = true;
+            for (int j = 0; j < n; j++) {
+                int c = 3 * (offset + j);
+                double d = (this.coordinates[c] - plane.p.x) * nx +
+                        (this.coordinates[c + 1] - plane.p.y) * ny +
+                        (this.coordinates[c + 2] - plane.p.z) * nz;
+
+                if (d > EPSILON) {
+                    this.positions[j] = FRONT;
+                    allBack = false;
+                } else if (d < -EPSILON) {
+                    this.positions[j] = BACK;
+                    allFront = false;
+                } else {
+                    this.positions[j] = INSIDE;
+                }
+            }
+
+            if (allBack) {
+                continue;
+            }
+
+            target.beginFace(this.colors[i]);
+            for (int j = 0; j < n; j++) {
+                int c1 = 3 * (offset + j);
+                if (allFront || this.positions[j] != BACK) {
+                    target.addVertex(this.coordinates[c1], this.coordinates[c1 + 1], this.coordinates[c1 + 2]);
+                }
+
+                if (allFront) {
+                    continue;
+                }
+
+                int p1 = this.positions[j];
+                int p2 = this.positions[(j + 1) % n];
+                if (((p1 == FRONT) && (p2 == BACK)) || ((p1 == BACK) && (p2 == FRONT))) {
+                    int c2 = 3 * (offset + (j + 1) % n);
+                    double x1 = this.coordinates[c1];
+                    double y1 = this.coordinates[c1 + 1];
+                    double z1 = this.coordinates[c1 + 2];
+                    double dx = this.coordinates[c2] - x1;
+                    double dy = this.coordinates[c2 + 1] - y1;
+                    double dz = this.coordinates[c2 + 2] - z1;
+                    double t = -(nx * x1 + ny * y1 + nz * z1 - pd) / (dx * nx + dy * ny + dz * nz);
+                    target.addVertex(x1 + t * dx, y1 + t * dy, z1 + t * dz);
+                }
+            }
+        }
+
+        PackedMesh result = target == destination ? destination : destination.set(target);
+        Instrumentation.record(Instrumentation.Operation.MESH_CLIP, start);
+
+        return result;
+    }
+
+    private PackedMesh scratch() {
+        if (this.scratch == null) {
+            this.scratch = new PackedMesh(this.vertexCount, this.faceCount);
+        }
+
+        return this.scratch;
+    }
+
+    private void copyTopology(PackedMesh mesh) {
+        if (mesh != this) {
+            clear();
+            ensureCapacity(mesh.vertexCount, mesh.faceCount);
+            System.arraycopy(mesh.faceOffsets, 0, this.faceOffsets, 0, mesh.faceCount);
+            System.arraycopy(mesh.faceLengths, 0, this.faceLengths, 0, mesh.faceCount);
+            System.arraycopy(mesh.colors, 0, this.colors, 0, mesh.faceCount);
+            this.vertexCount = mesh.vertexCount;
+            this.faceCount = mesh.faceCount;
+        }
+    }
+}
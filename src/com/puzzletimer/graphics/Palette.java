@@ -0,0 +1,78 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Palette {
+    public static final int MAX_SIZE = 256;
+
+    private final Color[] colors;
+    private final int[] rgb;
+
+    public Palette(Color[] colors) {
+        if (colors.length > MAX_SIZE) {
+            throw new IllegalArgumentException("a palette holds at most " + MAX_SIZE + " colors");
+        }
+
+        this.colors = colors.clone();
+        this.rgb = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            this.rgb[i] = colors[i].getRGB();
+        }
+    }
+
+    public static Palette fromMesh(Mesh mesh) {
+        List<Color> colors = new ArrayList<Color>();
+        Map<Integer, Integer> indices = new HashMap<Integer, Integer>();
+        for (Face face : mesh.faces) {
+            if (!indices.containsKey(face.color.getRGB())) {
+                indices.put(face.color.getRGB(), colors.size());
+                colors.add(face.color);
+            }
+        }
+
+        return new Palette(colors.toArray(new Color[colors.size()]));
+    }
+
+    public int size() {
+        return this.colors.length;
+    }
+
+    public Color getColor(int index) {
+        return this.colors[index];
+    }
+
+    public int getRGB(int index) {
+        return this.rgb[index];
+    }
+
+    public int indexOf(Color color) {
+        int rgb = color.getRGB();
+        for (int i = 0; i < this.rgb.length; i++) {
+            if (this.rgb[i] == rgb) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public Palette setColor(int index, Color color) {
+        Color[] colors = this.colors.clone();
+        colors[index] = color;
+
+        return new Palette(colors);
+    }
+
+    public boolean equals(Object o) {
+        return o instanceof Palette && Arrays.equals(this.rgb, ((Palette) o).rgb);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(this.rgb);
+    }
+}
@@ -3,156 +3,224 @@ package com.puzzletimer.graphics;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.awt.image.BufferedImage;
 
 public class Panel3D
         extends JPanel implements MouseListener, MouseMotionListener, MouseWheelListener {
-    private Mesh mesh;
-    private Vector3 lightDirection;
-    private Vector3 viewerPosition;
-    private Vector3 cameraPosition;
-    private Vector3 cameraRotation;
+    private final Object lock;
+    private Renderer renderer;
+    private TransformedMesh mesh;
+    private View view;
     private int lastX;
     private int lastY;
 
+    // built from the untransformed mesh, so rotations reuse it; guarded by lock
+    private boolean bspRendering;
+    private BspTree bspTree;
+    private Mesh bspSource;
+
+    // built lazily on the first pick after the mesh changes; guarded by lock
+    private Bvh bvh;
+
+    // background rendering state, guarded by lock
+    private boolean backgroundRendering;
+    private long frameInterval;
+    private RenderThread renderThread;
+    private BufferedImage frontBuffer;
+    private BufferedImage backBuffer;
+    private int pendingX;
+    private int pendingY;
+    private boolean dirty;
+
+    // size and background as of the last paint; the render thread reads
+    // these instead of querying the component off the event dispatch thread
+    private int frameWidth;
+    private int frameHeight;
+    private Color frameBackground;
+
     public Panel3D() {
-        this.mesh = new Mesh(new Face[0]);
-        this.lightDirection = new Vector3(0.0D, 0.25D, -1.0D).unit();
-        this.viewerPosition = new Vector3(0.0D, 0.0D, -325.0D);
-        this.cameraPosition = new Vector3(0.0D, 0.0D, -2.8D);
-        this.cameraRotation = new Vector3(0.0D, 0.0D, 0.0D);
+        this.lock = new Object();
+        this.renderer = new Renderer();
+        this.mesh = new TransformedMesh(new Mesh(new Face[0]));
+        this.view = new View();
 
         this.lastX = 0;
         this.lastY = 0;
 
+        this.backgroundRendering = false;
+        this.frameInterval = 0L;
+
         addMouseListener(this);
         addMouseMotionListener(this);
         addMouseWheelListener(this);
     }
 
     public void setMesh(Mesh mesh) {
-        this.mesh = mesh;
-        repaint();
+        synchronized (this.lock) {
+            this.mesh = new TransformedMesh(mesh);
+            this.pendingX = 0;
+            this.pendingY = 0;
+        }
+        invalidateFrame();
+    }
+
+    public void setRenderer(Renderer renderer) {
+        synchronized (this.lock) {
+            this.renderer = renderer;
+        }
+        invalidateFrame();
     }
 
     public void setLightDirection(Vector3 lightDirection) {
-        this.lightDirection = lightDirection;
-        repaint();
+        synchronized (this.lock) {
+            this.view = this.view.setLightDirection(lightDirection);
+        }
+        invalidateFrame();
+    }
+
+    public void setLightModel(LightModel lightModel) {
+        synchronized (this.lock) {
+            this.view = this.view.setLightModel(lightModel);
+        }
+        invalidateFrame();
     }
 
     public void setViewerPosition(Vector3 viewerPosition) {
-        this.viewerPosition = viewerPosition;
-        repaint();
+        synchronized (this.lock) {
+            this.view = this.view.setViewerPosition(viewerPosition);
+        }
+        invalidateFrame();
     }
 
     public void setCameraPosition(Vector3 cameraPosition) {
-        this.cameraPosition = cameraPosition;
-        repaint();
+        synchronized (this.lock) {
+            this.view = this.view.setCameraPosition(cameraPosition);
+        }
+        invalidateFrame();
     }
 
     public void setCameraRotation(Vector3 cameraRotation) {
-        this.cameraRotation = cameraRotation;
-        repaint();
-    }
-
-    private Vector3 toCameraCoordinates(Vector3 v) {
-        return Matrix44.rotationX(-this.cameraRotation.x).mul(
-                Matrix44.rotationY(-this.cameraRotation.y).mul(
-                        Matrix44.rotationZ(-this.cameraRotation.z).mul(
-                                v.sub(this.cameraPosition))));
+        synchronized (this.lock) {
+            this.view = this.view.setCameraRotation(cameraRotation);
+        }
+        invalidateFrame();
     }
 
-    private Vector3 perspectiveProjection(Vector3 v) {
-        return new Vector3(
-                getWidth() / 2.0D + (-v.x - this.viewerPosition.x) * (this.viewerPosition.z / v.z),
-                getHeight() / 2.0D + (v.y - this.viewerPosition.y) * (this.viewerPosition.z / v.z),
-                0.0D);
+    // draws faces in BSP order instead of sorting centroids every frame;
+    // the tree is rebuilt only when the mesh changes
+    public void setBspRendering(boolean bspRendering) {
+        synchronized (this.lock) {
+            this.bspRendering = bspRendering;
+            if (!bspRendering) {
+                this.bspTree = null;
+                this.bspSource = null;
+            }
+        }
+        invalidateFrame();
     }
 
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
+    // returns the face under a point of the panel, or null; the face index
+    // refers to the mesh given to setMesh
+    public PickResult pick(int x, int y) {
+        TransformedMesh mesh;
+        View view;
+        Bvh bvh;
+        synchronized (this.lock) {
+            mesh = this.mesh;
+            view = this.view.setSize(getWidth(), getHeight());
+            bvh = this.bvh;
+        }
 
-        Face[] faces = Arrays.copyOf(this.mesh.faces, this.mesh.faces.length);
-        Arrays.sort(faces, new Comparator<Face>() {
-            public int compare(Face f1, Face f2) {
-                return Double.compare(
-                        f2.centroid().z,
-                        f1.centroid().z);
+        if (bvh == null || bvh.mesh != mesh.base) {
+            bvh = new Bvh(mesh.base);
+            synchronized (this.lock) {
+                if (this.mesh.base == mesh.base) {
+                    this.bvh = bvh;
+                }
             }
+        }
 
+        // aims at the pixel center, which is what polygon filling samples
+        return Renderer.pick(bvh, mesh.matrix, view, x + 0.5D, y + 0.5D);
+    }
 
-        });
-        Face[] pFaces = new Face[faces.length];
-        for (int i = 0; i < pFaces.length; i++) {
-            Vector3[] vertices = new Vector3[faces[i].vertices.length];
-            for (int j = 0; j < vertices.length; j++) {
-                vertices[j] = perspectiveProjection(toCameraCoordinates(faces[i].vertices[j]));
+    // renders on a dedicated thread into a back buffer; the event
+    // dispatch thread only blits finished frames
+    public void setBackgroundRendering(boolean backgroundRendering) {
+        synchronized (this.lock) {
+            if (this.backgroundRendering == backgroundRendering) {
+                return;
             }
 
-            pFaces[i] = faces[i].setVertices(vertices);
-        }
-
-
-        Color backfacingColor =
-                new Color(
-                        (4 * getBackground().getRed() + 32) / 5,
-                        (4 * getBackground().getGreen() + 32) / 5,
-                        (4 * getBackground().getBlue() + 32) / 5);
-        Face[] arrayOfFace1;
-        int i = (arrayOfFace1 = pFaces).length;
-        for (int j = 0; j < i; j++) {
-            Face pFace = arrayOfFace1[j];
-            Polygon polygon = new Polygon();
-            Vector3[] arrayOfVector31;
-            int k = (arrayOfVector31 = pFace.vertices).length;
-            for (int l = 0; l < k; l++) {
-                Vector3 v = arrayOfVector31[l];
-                polygon.addPoint((int) v.x, (int) v.y);
+            this.backgroundRendering = backgroundRendering;
+            if (backgroundRendering) {
+                startRenderThread();
+            } else {
+                stopRenderThread();
+                this.frontBuffer = null;
+                this.backBuffer = null;
             }
+        }
+        repaint();
+    }
 
-            Plane plane =
-                    new Plane(
-                            pFace.vertices[0],
-                            pFace.vertices[1],
-                            pFace.vertices[2]);
-
+    // caps the background render thread; zero or less means uncapped
+    public void setMaxFrameRate(int framesPerSecond) {
+        synchronized (this.lock) {
+            this.frameInterval = framesPerSecond > 0 ? 1000000000L / framesPerSecond : 0L;
+            this.lock.notifyAll();
+        }
+    }
 
-            if (plane.n.z >= 0.0D) {
-                double light = Math.abs(this.lightDirection.dot(plane.n));
+    public void addNotify() {
+        super.addNotify();
 
+        synchronized (this.lock) {
+            if (this.backgroundRendering) {
+                startRenderThread();
+            }
+        }
+    }
 
-                float[] hsbColor = Color.RGBtoHSB(
-                        pFace.color.getRed(),
-                        pFace.color.getGreen(),
-                        pFace.color.getBlue(),
-                        null);
-                Color fillColor = new Color(
-                        Color.HSBtoRGB(
-                                hsbColor[0],
-                                (float) (0.875D + 0.125D * light) * hsbColor[1],
-                                (float) (0.875D + 0.125D * light) * hsbColor[2]));
-                g2.setColor(fillColor);
-                g2.fillPolygon(polygon);
+    public void removeNotify() {
+        synchronized (this.lock) {
+            stopRenderThread();
+        }
 
+        super.removeNotify();
+    }
 
-                Color outlineColor = new Color(
-                        Color.HSBtoRGB(
-                                hsbColor[0],
-                                (float) (0.9D * (0.875D + 0.125D * light) * hsbColor[1]),
-                                (float) (0.9D * (0.875D + 0.125D * light) * hsbColor[2])));
-                g2.setColor(outlineColor);
-                g2.drawPolygon(polygon);
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
 
-            } else {
-                g2.setColor(backfacingColor);
-                g2.fillPolygon(polygon);
+        Renderer renderer;
+        TransformedMesh mesh;
+        View view;
+        boolean bsp;
+        synchronized (this.lock) {
+            if (this.backgroundRendering) {
+                BufferedImage frame = this.frontBuffer;
+                if (updateFrameState() || frame == null || frame.getWidth() != this.frameWidth || frame.getHeight() != this.frameHeight) {
+                    requestFrame();
+                }
+
+                if (frame != null) {
+                    g.drawImage(frame, 0, 0, null);
+                }
+                return;
             }
+
+            renderer = this.renderer;
+            mesh = this.mesh;
+            view = this.view;
+            bsp = this.bspRendering;
+        }
+
+        view = view.setSize(getWidth(), getHeight()).setBackground(getBackground());
+        if (bsp) {
+            renderer.render(bspTree(mesh.base), mesh.matrix, view, (Graphics2D) g);
+        } else {
+            renderer.render(mesh, view, (Graphics2D) g);
         }
     }
 
@@ -180,23 +248,20 @@ public class Panel3D
 
 
     public void mouseDragged(MouseEvent e) {
-        double angleX = (e.getY() - this.lastY) / 50.0D;
-        double angleY = (e.getX() - this.lastX) / 50.0D;
-
-        this.mesh = this.mesh.transform(
-                Matrix44.rotationZ(this.cameraRotation.z).mul(
-                        Matrix44.rotationY(this.cameraRotation.y).mul(
-                                Matrix44.rotationX(this.cameraRotation.x).mul(
-                                        Matrix44.rotationX(angleX).mul(
-                                                Matrix44.rotationY(angleY).mul(
-                                                        Matrix44.rotationX(-this.cameraRotation.x).mul(
-                                                                Matrix44.rotationY(-this.cameraRotation.y).mul(
-                                                                        Matrix44.rotationZ(-this.cameraRotation.z)))))))));
+        synchronized (this.lock) {
+            if (this.backgroundRendering) {
+                // coalesced into a single rotation by the next frame
+                this.pendingX += e.getX() - this.lastX;
+                this.pendingY += e.getY() - this.lastY;
+            } else {
+                this.mesh = rotate(this.mesh, this.view.cameraRotation, e.getX() - this.lastX, e.getY() - this.lastY);
+            }
+        }
 
         this.lastX = e.getX();
         this.lastY = e.getY();
 
-        repaint();
+        invalidateFrame();
     }
 
 
@@ -205,14 +270,181 @@ public class Panel3D
 
 
     public void mouseWheelMoved(MouseWheelEvent e) {
-        Vector3 direction = this.cameraPosition.unit();
-        Vector3 newPosition = this.cameraPosition.add(direction.mul(0.1D * e.getWheelRotation()));
-        if ((1.0D < newPosition.norm()) && (newPosition.norm() < 50.0D)) {
-            this.cameraPosition = newPosition;
+        synchronized (this.lock) {
+            Vector3 cameraPosition = this.view.cameraPosition;
+            Vector3 direction = cameraPosition.unit();
+            Vector3 newPosition = cameraPosition.add(direction.mul(0.1D * e.getWheelRotation()));
+            if ((1.0D < newPosition.norm()) && (newPosition.norm() < 50.0D)) {
+                this.view = this.view.setCameraPosition(newPosition);
+            }
+        }
+
+        invalidateFrame();
+    }
+
+    private static TransformedMesh rotate(TransformedMesh mesh, Vector3 cameraRotation, int deltaX, int deltaY) {
+        double angleX = deltaY / 50.0D;
+        double angleY = deltaX / 50.0D;
+
+        return mesh.transform(
+                Matrix44.rotationZ(cameraRotation.z).mul(
+                        Matrix44.rotationY(cameraRotation.y).mul(
+                                Matrix44.rotationX(cameraRotation.x).mul(
+                                        Matrix44.rotationX(angleX).mul(
+                                                Matrix44.rotationY(angleY).mul(
+                                                        Matrix44.rotationX(-cameraRotation.x).mul(
+                                                                Matrix44.rotationY(-cameraRotation.y).mul(
+                                                                        Matrix44.rotationZ(-cameraRotation.z)))))))));
+    }
+
+    private BspTree bspTree(Mesh mesh) {
+        synchronized (this.lock) {
+            if (this.bspTree != null && this.bspSource == mesh) {
+                return this.bspTree;
+            }
+        }
+
+        BspTree tree = new BspTree(mesh);
+        synchronized (this.lock) {
+            if (this.bspRendering) {
+                this.bspTree = tree;
+                this.bspSource = mesh;
+            }
+        }
+
+        return tree;
+    }
+
+    private void invalidateFrame() {
+        synchronized (this.lock) {
+            if (this.backgroundRendering) {
+                requestFrame();
+                return;
+            }
         }
 
         repaint();
     }
+
+    // called on the event dispatch thread with lock held; returns whether
+    // the size or background changed
+    private boolean updateFrameState() {
+        int width = getWidth();
+        int height = getHeight();
+        Color background = getBackground();
+        if (width == this.frameWidth && height == this.frameHeight
+                && (background == null ? this.frameBackground == null : background.equals(this.frameBackground))) {
+            return false;
+        }
+
+        this.frameWidth = width;
+        this.frameHeight = height;
+        this.frameBackground = background;
+
+        return true;
+    }
+
+    private void requestFrame() {
+        this.dirty = true;
+        this.lock.notifyAll();
+    }
+
+    private void startRenderThread() {
+        if (this.renderThread == null) {
+            this.renderThread = new RenderThread();
+            this.renderThread.start();
+            requestFrame();
+        }
+    }
+
+    private void stopRenderThread() {
+        if (this.renderThread != null) {
+            this.renderThread.running = false;
+            this.renderThread = null;
+            this.lock.notifyAll();
+        }
+    }
+
+    private class RenderThread extends Thread {
+        private boolean running;
+
+        private RenderThread() {
+            super("Panel3D renderer");
+            setDaemon(true);
+            this.running = true;
+        }
+
+        public void run() {
+            Panel3D panel = Panel3D.this;
+            long lastFrame = System.nanoTime() - panel.frameInterval;
+
+            while (true) {
+                Renderer renderer;
+                TransformedMesh mesh;
+                View view;
+                BufferedImage buffer;
+                boolean bsp;
+
+                synchronized (panel.lock) {
+                    try {
+                        while (this.running && !panel.dirty) {
+                            panel.lock.wait();
+                        }
+                        if (!this.running) {
+                            return;
+                        }
+
+                        // drags arriving during the wait keep accumulating
+                        long delay = lastFrame + panel.frameInterval - System.nanoTime();
+                        if (delay > 0L) {
+                            panel.lock.wait(delay / 1000000L, (int) (delay % 1000000L));
+                            continue;
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    panel.dirty = false;
+                    if (panel.pendingX != 0 || panel.pendingY != 0) {
+                        panel.mesh = rotate(panel.mesh, panel.view.cameraRotation, panel.pendingX, panel.pendingY);
+                        panel.pendingX = 0;
+                        panel.pendingY = 0;
+                    }
+
+                    renderer = panel.renderer;
+                    mesh = panel.mesh;
+                    view = panel.view.setSize(panel.frameWidth, panel.frameHeight).setBackground(panel.frameBackground);
+                    buffer = panel.backBuffer;
+                    bsp = panel.bspRendering;
+                }
+
+                if (view.width <= 0 || view.height <= 0) {
+                    continue;
+                }
+
+                if (buffer == null || buffer.getWidth() != view.width || buffer.getHeight() != view.height) {
+                    buffer = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+                }
+
+                lastFrame = System.nanoTime();
+                if (bsp) {
+                    renderer.render(panel.bspTree(mesh.base), mesh.matrix, view, buffer);
+                } else {
+                    renderer.render(mesh, view, buffer);
+                }
+
+                synchronized (panel.lock) {
+                    if (!this.running) {
+                        return;
+                    }
+
+                    panel.backBuffer = panel.frontBuffer;
+                    panel.frontBuffer = buffer;
+                }
+                panel.repaint();
+            }
+        }
+    }
 }
 
 /* Location:              prisma-graphics.jar!/com/puzzletimer/graphics/Panel3D.class
@@ -0,0 +1,184 @@
+package com.puzzletimer.graphics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelMesh {
+    public static final int DEFAULT_THRESHOLD = 512;
+
+    private static final ParallelMesh DEFAULT = new ParallelMesh(new ForkJoinPool(), DEFAULT_THRESHOLD);
+
+    private interface FaceOperation {
+        Face apply(Face face);
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelMesh(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public static ParallelMesh getDefault() {
+        return DEFAULT;
+    }
+
+    public Mesh transform(Mesh mesh, final Matrix44 matrix) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.transform(matrix);
+        }
+
+        long start = Instrumentation.start();
+        Mesh result = new Mesh(apply(mesh.faces, new FaceOperation() {
+            public Face apply(Face face) {
+                return face.transform(matrix);
+            }
+        }));
+        Instrumentation.record(Instrumentation.Operation.MESH_TRANSFORM, start);
+
+        return result;
+    }
+
+    public Mesh rotateHalfspace(Mesh mesh, final Plane plane, double angle) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.rotateHalfspace(plane, angle);
+        }
+
+        long start = Instrumentation.start();
+        final Matrix44 matrix = Matrix44.rotation(plane.n, angle);
+        Mesh result = new Mesh(apply(mesh.faces, new FaceOperation() {
+            public Face apply(Face face) {
+                if (face.centroid().sub(plane.p).dot(plane.n) >= 0.0D) {
+                    return face.transform(matrix);
+                }
+
+                return face;
+            }
+        }));
+        Instrumentation.record(Instrumentation.Operation.MESH_ROTATE_HALFSPACE, start);
+
+        return result;
+    }
+
+    public Mesh shortenFaces(Mesh mesh, final double length) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.shortenFaces(length);
+        }
+
+        return new Mesh(apply(mesh.faces, new FaceOperation() {
+            public Face apply(Face face) {
+                return face.shorten(length);
+            }
+        }));
+    }
+
+    public Mesh softenFaces(Mesh mesh, final double length) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.softenFaces(length);
+        }
+
+        return new Mesh(apply(mesh.faces, new FaceOperation() {
+            public Face apply(Face face) {
+                return face.soften(length);
+            }
+        }));
+    }
+
+    public Mesh clip(Mesh mesh, Plane plane) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.clip(plane);
+        }
+
+        long start = Instrumentation.start();
+        Mesh result = clipFaces(mesh, plane);
+        Instrumentation.record(Instrumentation.Operation.MESH_CLIP, start);
+
+        return result;
+    }
+
+    public Mesh cut(Mesh mesh, Plane plane, double width) {
+        if (mesh.faces.length < this.threshold) {
+            return mesh.cut(plane, width);
+        }
+
+        // as in Mesh, the clips of a cut are only counted as the cut
+        long start = Instrumentation.start();
+        Mesh front = clipFaces(mesh, new Plane(plane.p.add(plane.n.mul(width / 2.0D)), plane.n));
+        Mesh back = clipFaces(mesh, new Plane(plane.p.sub(plane.n.mul(width / 2.0D)), plane.n.neg()));
+
+        Mesh result = front.union(back);
+        Instrumentation.record(Instrumentation.Operation.MESH_CUT, start);
+
+        return result;
+    }
+
+    private Mesh clipFaces(Mesh mesh, final Plane plane) {
+        Face[] clipped = apply(mesh.faces, new FaceOperation() {
+            public Face apply(Face face) {
+                return face.clip(plane);
+            }
+        });
+
+        int count = 0;
+        for (Face face : clipped) {
+            if (face.vertices.length > 0) {
+                count++;
+            }
+        }
+
+        Face[] faces = new Face[count];
+        int next = 0;
+        for (Face face : clipped) {
+            if (face.vertices.length > 0) {
+                faces[next] = face;
+                next++;
+            }
+        }
+
+        return new Mesh(faces);
+    }
+
+    private Face[] apply(Face[] faces, FaceOperation operation) {
+        Face[] result = new Face[faces.length];
+        int grain = Math.max(this.threshold / 4, faces.length / (4 * this.pool.getParallelism()));
+        this.pool.invoke(new Task(faces, result, operation, 0, faces.length, Math.max(grain, 1)));
+
+        return result;
+    }
+
+    private static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Face[] faces;
+        private final Face[] result;
+        private final FaceOperation operation;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private Task(Face[] faces, Face[] result, FaceOperation operation, int from, int to, int grain) {
+            this.faces = faces;
+            this.result = result;
+            this.operation = operation;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.result[i] = this.operation.apply(this.faces[i]);
+                }
+
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(
+                    new Task(this.faces, this.result, this.operation, this.from, middle, this.grain),
+                    new Task(this.faces, this.result, this.operation, middle, this.to, this.grain));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PermutationTable {
+    private static final double TOLERANCE = 1e-6D;
+
+    public final Mesh mesh;
+    public final Move[] moves;
+    private final int[][] permutations;
+
+    public PermutationTable(Mesh mesh, List<Move> moves) {
+        this(mesh, moves.toArray(new Move[moves.size()]));
+    }
+
+    public PermutationTable(Mesh mesh, Move[] moves) {
+        this.mesh = mesh;
+        this.moves = moves;
+        this.permutations = new int[moves.length][];
+
+        Vector3[] centroids = new Vector3[mesh.faces.length];
+        for (int i = 0; i < centroids.length; i++) {
+            centroids[i] = mesh.faces[i].centroid();
+        }
+
+        for (int i = 0; i < moves.length; i++) {
+            Mesh moved = mesh.rotateHalfspace(moves[i].plane, moves[i].angle);
+            this.permutations[i] = match(moved, centroids, i);
+        }
+    }
+
+    private static int[] match(Mesh moved, Vector3[] centroids, int move) {
+        int[] permutation = new int[centroids.length];
+        boolean[] used = new boolean[centroids.length];
+        for (int i = 0; i < permutation.length; i++) {
+            Vector3 centroid = moved.faces[i].centroid();
+
+            int best = -1;
+            double bestDistance = TOLERANCE;
+            for (int j = 0; j < centroids.length; j++) {
+                double distance = centroid.sub(centroids[j]).norm();
+                if (distance < bestDistance) {
+                    best = j;
+                    bestDistance = distance;
+                }
+            }
+
+            if (best < 0 || used[best]) {
+                throw new IllegalArgumentException("move " + move + " does not map face " + i + " onto a face position");
+            }
+
+            permutation[i] = best;
+            used[best] = true;
+        }
+
+        return permutation;
+    }
+
+    public int size() {
+        return this.permutations.length;
+    }
+
+    public int[] permutation(int move) {
+        return this.permutations[move].clone();
+    }
+
+    public int[] compose(int[] moves) {
+        int[] permutation = new int[this.mesh.faces.length];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = i;
+        }
+
+        for (int move : moves) {
+            int[] p = this.permutations[move];
+            for (int i = 0; i < permutation.length; i++) {
+                permutation[i] = p[permutation[i]];
+            }
+        }
+
+        return permutation;
+    }
+
+    public int[] solvedColors() {
+        int[] colors = new int[this.mesh.faces.length];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = this.mesh.faces[i].color.getRGB();
+        }
+
+        return colors;
+    }
+
+    public int[] apply(int[] colors, int move) {
+        int[] result = new int[colors.length];
+        permute(colors, this.permutations[move], result);
+
+        return result;
+    }
+
+    public void apply(int[] colors, int move, int[] result) {
+        permute(colors, this.permutations[move], result);
+    }
+
+    public int[] apply(int[] colors, int[] moves) {
+        int[] result = new int[colors.length];
+        permute(colors, compose(moves), result);
+
+        return result;
+    }
+
+    public static void permute(int[] colors, int[] permutation, int[] result) {
+        for (int i = 0; i < permutation.length; i++) {
+            result[permutation[i]] = colors[i];
+        }
+    }
+
+    public Mesh toMesh(int[] colors) {
+        Map<Integer, Color> palette = new HashMap<Integer, Color>();
+
+        Face[] faces = new Face[this.mesh.faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            Color color = palette.get(colors[i]);
+            if (color == null) {
+                color = new Color(colors[i], true);
+                palette.put(colors[i], color);
+            }
+
+            faces[i] = this.mesh.faces[i].setColor(color);
+        }
+
+        return new Mesh(faces);
+    }
+}
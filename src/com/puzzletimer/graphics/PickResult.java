@@ -0,0 +1,17 @@
+package com.puzzletimer.graphics;
+
+public class PickResult {
+    // index into the picked mesh's faces
+    public final int faceIndex;
+    public final Face face;
+    // hit point in the coordinates of the picked mesh
+    public final Vector3 point;
+    public final double distance;
+
+    public PickResult(int faceIndex, Face face, Vector3 point, double distance) {
+        this.faceIndex = faceIndex;
+        this.face = face;
+        this.point = point;
+        this.distance = distance;
+    }
+}
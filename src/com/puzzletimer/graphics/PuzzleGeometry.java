@@ -0,0 +1,54 @@
+package com.puzzletimer.graphics;
+
+public class PuzzleGeometry {
+    public final Mesh mesh;
+
+    public PuzzleGeometry(Mesh mesh) {
+        this.mesh = mesh;
+    }
+
+    public int getFaceCount() {
+        return this.mesh.faces.length;
+    }
+
+    public PuzzleState state(Mesh coloredMesh, Palette palette) {
+        if (coloredMesh.faces.length != this.mesh.faces.length) {
+            throw new IllegalArgumentException("mesh has " + coloredMesh.faces.length + " faces, expected " + this.mesh.faces.length);
+        }
+
+        byte[] indices = new byte[coloredMesh.faces.length];
+        for (int i = 0; i < indices.length; i++) {
+            int index = palette.indexOf(coloredMesh.faces[i].color);
+            if (index < 0) {
+                throw new IllegalArgumentException("face " + i + " has a color that is not in the palette");
+            }
+
+            indices[i] = (byte) index;
+        }
+
+        return new PuzzleState(indices, false);
+    }
+
+    public Mesh toMesh(Palette palette, PuzzleState state) {
+        check(palette, state);
+
+        Face[] faces = new Face[this.mesh.faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = this.mesh.faces[i].setColor(palette.getColor(state.get(i)));
+        }
+
+        return new Mesh(faces);
+    }
+
+    void check(Palette palette, PuzzleState state) {
+        if (state.size() != this.mesh.faces.length) {
+            throw new IllegalArgumentException("state has " + state.size() + " faces, expected " + this.mesh.faces.length);
+        }
+
+        for (int i = 0; i < state.size(); i++) {
+            if (state.get(i) >= palette.size()) {
+                throw new IllegalArgumentException("face " + i + " uses palette index " + state.get(i) + " of " + palette.size());
+            }
+        }
+    }
+}
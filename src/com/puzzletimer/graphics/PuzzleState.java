@@ -0,0 +1,77 @@
+package com.puzzletimer.graphics;
+
+import java.util.Arrays;
+
+public class PuzzleState {
+    // one palette index per face, shared with no one
+    private final byte[] indices;
+
+    public PuzzleState(byte[] indices) {
+        this(indices, true);
+    }
+
+    PuzzleState(byte[] indices, boolean copy) {
+        this.indices = copy ? indices.clone() : indices;
+    }
+
+    public static PuzzleState of(int[] faceIndices) {
+        byte[] indices = new byte[faceIndices.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = index(faceIndices[i]);
+        }
+
+        return new PuzzleState(indices, false);
+    }
+
+    public int size() {
+        return this.indices.length;
+    }
+
+    public int get(int face) {
+        return this.indices[face] & 0xff;
+    }
+
+    public byte[] toArray() {
+        return this.indices.clone();
+    }
+
+    public PuzzleState set(int face, int index) {
+        byte[] indices = this.indices.clone();
+        indices[face] = index(index);
+
+        return new PuzzleState(indices, false);
+    }
+
+    public PuzzleState permute(int[] permutation) {
+        byte[] indices = new byte[this.indices.length];
+        for (int i = 0; i < permutation.length; i++) {
+            indices[permutation[i]] = this.indices[i];
+        }
+
+        return new PuzzleState(indices, false);
+    }
+
+    public PuzzleState apply(PermutationTable table, int move) {
+        return permute(table.permutation(move));
+    }
+
+    public PuzzleState apply(PermutationTable table, int[] moves) {
+        return permute(table.compose(moves));
+    }
+
+    private static byte index(int index) {
+        if (index < 0 || index >= Palette.MAX_SIZE) {
+            throw new IllegalArgumentException("palette index out of range: " + index);
+        }
+
+        return (byte) index;
+    }
+
+    public boolean equals(Object o) {
+        return o instanceof PuzzleState && Arrays.equals(this.indices, ((PuzzleState) o).indices);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(this.indices);
+    }
+}
@@ -0,0 +1,241 @@
+package com.puzzletimer.graphics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+class Rasterizer {
+    // relative slack that lets an outline win the depth test against the face it borders
+    private static final double OUTLINE_TOLERANCE = 1e-3D;
+
+    private int width;
+    private int height;
+    private int samples;
+    private int[] colors;
+    private double[] depths;
+    private double[] inverseDepths;
+    private BufferedImage image;
+
+    Rasterizer() {
+        this.colors = new int[0];
+        this.depths = new double[0];
+        this.inverseDepths = new double[0];
+    }
+
+    BufferedImage image(int width, int height) {
+        if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        return this.image;
+    }
+
+    static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    void render(RenderFrame frame, View view, boolean antialiasing, int background, int[] pixels) {
+        long start = Instrumentation.start();
+        this.samples = antialiasing ? 2 : 1;
+        this.width = this.samples * view.width;
+        this.height = this.samples * view.height;
+
+        int size = this.width * this.height;
+        if (this.depths.length < size) {
+            this.depths = new double[size];
+        }
+
+        int[] target = pixels;
+        if (this.samples > 1) {
+            if (this.colors.length < size) {
+                this.colors = new int[size];
+            }
+            target = this.colors;
+        }
+
+        for (int i = 0; i < size; i++) {
+            target[i] = background;
+            this.depths[i] = 0.0D;
+        }
+
+        if (this.inverseDepths.length < frame.vertexCount) {
+            this.inverseDepths = new double[frame.vertexCount];
+        }
+        for (int i = 0; i < frame.vertexCount; i++) {
+            this.inverseDepths[i] = 1.0D / frame.cameraCoordinates[3 * i + 2];
+        }
+
+        for (int face = 0; face < frame.faceCount; face++) {
+            if (frame.visible[face] && inFront(frame, face)) {
+                fill(frame, face, target);
+            }
+        }
+
+        for (int face = 0; face < frame.faceCount; face++) {
+            if (frame.visible[face] && frame.frontFacing[face] && inFront(frame, face)) {
+                outline(frame, face, target);
+            }
+        }
+
+        if (this.samples > 1) {
+            downsample(pixels, view.width, view.height);
+        }
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_FILL, start);
+    }
+
+    private boolean inFront(RenderFrame frame, int face) {
+        int offset = frame.faceOffsets[face];
+        for (int i = offset; i < offset + frame.faceLengths[face]; i++) {
+            if (this.inverseDepths[i] <= 0.0D) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void fill(RenderFrame frame, int face, int[] target) {
+        int offset = frame.faceOffsets[face];
+        int length = frame.faceLengths[face];
+        int color = frame.fillColors[face];
+        double scale = this.samples;
+
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++) {
+            minY = Math.min(minY, scale * frame.screenY[i]);
+            maxY = Math.max(maxY, scale * frame.screenY[i]);
+        }
+
+        int y0 = Math.max(0, (int) Math.ceil(minY - 0.5D));
+        int y1 = Math.min(this.height - 1, (int) Math.ceil(maxY - 0.5D) - 1);
+        for (int y = y0; y <= y1; y++) {
+            double center = y + 0.5D;
+
+            // faces are convex, so each scanline crosses the boundary at one span
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            double leftDepth = 0.0D;
+            double rightDepth = 0.0D;
+            for (int i = 0; i < length; i++) {
+                int a = offset + i;
+                int b = offset + (i + 1) % length;
+                double ay = scale * frame.screenY[a];
+                double by = scale * frame.screenY[b];
+                if ((ay <= center) == (by <= center)) {
+                    continue;
+                }
+
+                double t = (center - ay) / (by - ay);
+                double x = scale * (frame.screenX[a] + t * (frame.screenX[b] - frame.screenX[a]));
+                double depth = this.inverseDepths[a] + t * (this.inverseDepths[b] - this.inverseDepths[a]);
+                if (x < left) {
+                    left = x;
+                    leftDepth = depth;
+                }
+                if (x > right) {
+                    right = x;
+                    rightDepth = depth;
+                }
+            }
+
+            if (left > right) {
+                continue;
+            }
+
+            int x0 = Math.max(0, (int) Math.ceil(left - 0.5D));
+            int x1 = Math.min(this.width - 1, (int) Math.ceil(right - 0.5D) - 1);
+            double slope = right > left ? (rightDepth - leftDepth) / (right - left) : 0.0D;
+            int row = y * this.width;
+            for (int x = x0; x <= x1; x++) {
+                double depth = leftDepth + (x + 0.5D - left) * slope;
+                if (depth > this.depths[row + x]) {
+                    this.depths[row + x] = depth;
+                    target[row + x] = color;
+                }
+            }
+        }
+    }
+
+    private void outline(RenderFrame frame, int face, int[] target) {
+        int offset = frame.faceOffsets[face];
+        int length = frame.faceLengths[face];
+        int color = frame.outlineColors[face];
+        double scale = this.samples;
+
+        for (int i = 0; i < length; i++) {
+            int a = offset + i;
+            int b = offset + (i + 1) % length;
+            double ax = scale * frame.screenX[a];
+            double ay = scale * frame.screenY[a];
+            double dx = scale * frame.screenX[b] - ax;
+            double dy = scale * frame.screenY[b] - ay;
+            double dDepth = this.inverseDepths[b] - this.inverseDepths[a];
+
+            int steps = (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)));
+            for (int step = 0; step <= steps; step++) {
+                double t = steps == 0 ? 0.0D : (double) step / steps;
+                int x = (int) Math.floor(ax + t * dx);
+                int y = (int) Math.floor(ay + t * dy);
+                double depth = this.inverseDepths[a] + t * dDepth;
+
+                // a one pixel wide line covers a block of samples
+                for (int sy = y; sy < y + this.samples; sy++) {
+                    for (int sx = x; sx < x + this.samples; sx++) {
+                        plot(sx, sy, depth, color, target);
+                    }
+                }
+            }
+        }
+    }
+
+    private void plot(int x, int y, double depth, int color, int[] target) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return;
+        }
+
+        int index = y * this.width + x;
+        if (depth * (1.0D + OUTLINE_TOLERANCE) >= this.depths[index]) {
+            target[index] = color;
+        }
+    }
+
+    private void downsample(int[] pixels, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int top = 2 * y * this.width + 2 * x;
+                int bottom = top + this.width;
+                pixels[y * width + x] = average(
+                        this.colors[top],
+                        this.colors[top + 1],
+                        this.colors[bottom],
+                        this.colors[bottom + 1]);
+            }
+        }
+    }
+
+    private static int average(int c0, int c1, int c2, int c3) {
+        if (c0 == c1 && c0 == c2 && c0 == c3) {
+            return c0;
+        }
+
+        // average premultiplied channels so transparent samples do not darken edges
+        int a0 = c0 >>> 24;
+        int a1 = c1 >>> 24;
+        int a2 = c2 >>> 24;
+        int a3 = c3 >>> 24;
+        int alpha = a0 + a1 + a2 + a3;
+        if (alpha == 0) {
+            return 0;
+        }
+
+        int r = a0 * ((c0 >> 16) & 0xff) + a1 * ((c1 >> 16) & 0xff) + a2 * ((c2 >> 16) & 0xff) + a3 * ((c3 >> 16) & 0xff);
+        int g = a0 * ((c0 >> 8) & 0xff) + a1 * ((c1 >> 8) & 0xff) + a2 * ((c2 >> 8) & 0xff) + a3 * ((c3 >> 8) & 0xff);
+        int b = a0 * (c0 & 0xff) + a1 * (c1 & 0xff) + a2 * (c2 & 0xff) + a3 * (c3 & 0xff);
+
+        return ((alpha + 2) / 4) << 24 |
+                ((r + alpha / 2) / alpha) << 16 |
+                ((g + alpha / 2) / alpha) << 8 |
+                ((b + alpha / 2) / alpha);
+    }
+}
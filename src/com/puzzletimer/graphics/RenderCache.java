@@ -0,0 +1,297 @@
+package com.puzzletimer.graphics;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RenderCache {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static class Key {
+        public final long meshHash;
+        public final long viewHash;
+        public final RenderFormat format;
+        public final RenderMode mode;
+        public final boolean antialiasing;
+
+        // equality witnesses: two keys are equal only if their contents are,
+        // so a collision of the 64-bit hashes cannot return another image.
+        // They are packed copies of what the hashes read, so a cached entry
+        // does not keep the mesh and view objects alive
+        private final int[] faces;
+        private final double[] coordinates;
+        private final double[] view;
+        private final LightModel lightModel;
+
+        private Key(Mesh mesh, View view, RenderFormat format, RenderMode mode, boolean antialiasing) {
+            this.meshHash = hash(mesh);
+            this.viewHash = hash(view);
+            this.format = format;
+            this.mode = mode;
+            this.antialiasing = antialiasing;
+
+            int vertexCount = 0;
+            for (Face face : mesh.faces) {
+                vertexCount += face.vertices.length;
+            }
+
+            this.faces = new int[2 * mesh.faces.length];
+            this.coordinates = new double[3 * vertexCount];
+            int c = 0;
+            for (int i = 0; i < mesh.faces.length; i++) {
+                Face face = mesh.faces[i];
+                this.faces[2 * i] = face.vertices.length;
+                this.faces[2 * i + 1] = face.color.getRGB();
+                for (Vector3 v : face.vertices) {
+                    this.coordinates[c++] = v.x;
+                    this.coordinates[c++] = v.y;
+                    this.coordinates[c++] = v.z;
+                }
+            }
+
+            this.view = new double[] {
+                    view.lightDirection.x, view.lightDirection.y, view.lightDirection.z,
+                    view.viewerPosition.x, view.viewerPosition.y, view.viewerPosition.z,
+                    view.cameraPosition.x, view.cameraPosition.y, view.cameraPosition.z,
+                    view.cameraRotation.x, view.cameraRotation.y, view.cameraRotation.z,
+                    view.width, view.height, view.background.getRGB()
+            };
+            this.lightModel = view.lightModel;
+        }
+
+        // bytes held by the key, counted with the cached result
+        long size() {
+            return 96L + 4L * this.faces.length + 8L * this.coordinates.length + 8L * this.view.length;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return this.meshHash == key.meshHash &&
+                    this.viewHash == key.viewHash &&
+                    this.format == key.format &&
+                    this.mode == key.mode &&
+                    this.antialiasing == key.antialiasing &&
+                    Arrays.equals(this.faces, key.faces) &&
+                    Arrays.equals(this.coordinates, key.coordinates) &&
+                    Arrays.equals(this.view, key.view) &&
+                    this.lightModel.equals(key.lightModel);
+        }
+
+        public int hashCode() {
+            long h = this.meshHash * 31L + this.viewHash;
+            int hash = (int) (h ^ (h >>> 32)) * 31 + this.format.ordinal();
+            hash = hash * 31 + this.mode.ordinal();
+            return hash * 2 + (this.antialiasing ? 1 : 0);
+        }
+    }
+
+    private static class SoftEntry extends SoftReference<RenderResult> {
+        private final Key key;
+
+        private SoftEntry(Key key, RenderResult result, ReferenceQueue<RenderResult> queue) {
+            super(result, queue);
+            this.key = key;
+        }
+    }
+
+    private final long maxSize;
+    private final boolean softReferences;
+    private final LinkedHashMap<Key, RenderResult> entries;
+    private final Map<Key, SoftEntry> softEntries;
+    private final ReferenceQueue<RenderResult> queue;
+    private long size;
+
+    private long hits;
+    private long softHits;
+    private long misses;
+    private long evictions;
+
+    public RenderCache(long maxSize) {
+        this(maxSize, false);
+    }
+
+    public RenderCache(long maxSize, boolean softReferences) {
+        this.maxSize = maxSize;
+        this.softReferences = softReferences;
+        this.entries = new LinkedHashMap<Key, RenderResult>(16, 0.75f, true);
+        this.softEntries = new HashMap<Key, SoftEntry>();
+        this.queue = new ReferenceQueue<RenderResult>();
+        this.size = 0L;
+    }
+
+    public static Key key(Mesh mesh, View view, RenderFormat format) {
+        return new Key(mesh, view, format, RenderMode.PAINTER, true);
+    }
+
+    public static Key key(Mesh mesh, View view, RenderFormat format, Renderer renderer) {
+        return new Key(mesh, view, format, renderer.mode, renderer.antialiasing);
+    }
+
+    public static long hash(Mesh mesh) {
+        long h = FNV_OFFSET;
+        h = mix(h, mesh.faces.length);
+        for (Face face : mesh.faces) {
+            h = mix(h, face.vertices.length);
+            h = mix(h, face.color.getRGB());
+            for (Vector3 v : face.vertices) {
+                h = mix(h, v);
+            }
+        }
+
+        return h;
+    }
+
+    public static long hash(View view) {
+        long h = FNV_OFFSET;
+        h = mix(h, view.lightDirection);
+        h = mix(h, view.lightModel.hashCode());
+        h = mix(h, view.viewerPosition);
+        h = mix(h, view.cameraPosition);
+        h = mix(h, view.cameraRotation);
+        h = mix(h, view.width);
+        h = mix(h, view.height);
+        h = mix(h, view.background.getRGB());
+
+        return h;
+    }
+
+    private static long mix(long h, Vector3 v) {
+        h = mix(h, Double.doubleToLongBits(v.x));
+        h = mix(h, Double.doubleToLongBits(v.y));
+        return mix(h, Double.doubleToLongBits(v.z));
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+
+        return h;
+    }
+
+    public RenderResult render(Mesh mesh, View view, RenderFormat format, Renderer renderer) {
+        Key key = key(mesh, view, format, renderer);
+
+        RenderResult result = get(key);
+        if (result == null) {
+            if (format == RenderFormat.PNG) {
+                result = new RenderResult(0, null, view.width, view.height, renderer.renderPng(mesh, view), null, null);
+            } else {
+                result = new RenderResult(0, null, view.width, view.height, null, renderer.renderArgb(mesh, view), null);
+            }
+
+            put(key, result);
+        }
+
+        return result;
+    }
+
+    // cached pixels are never shared with callers, who may modify them
+    private static RenderResult copy(RenderResult result) {
+        return new RenderResult(
+                result.index,
+                result.job,
+                result.width,
+                result.height,
+                result.png == null ? null : result.png.clone(),
+                result.argb == null ? null : result.argb.clone(),
+                result.error);
+    }
+
+    public synchronized RenderResult get(Key key) {
+        expungeStaleEntries();
+
+        RenderResult result = this.entries.get(key);
+        if (result != null) {
+            this.hits++;
+            return copy(result);
+        }
+
+        SoftEntry softEntry = this.softEntries.remove(key);
+        if (softEntry != null) {
+            result = softEntry.get();
+            if (result != null) {
+                this.hits++;
+                this.softHits++;
+                insert(key, result);
+                return copy(result);
+            }
+        }
+
+        this.misses++;
+        return null;
+    }
+
+    public synchronized void put(Key key, RenderResult result) {
+        expungeStaleEntries();
+
+        RenderResult stripped = copy(result.setJob(0, null));
+        RenderResult previous = this.entries.remove(key);
+        if (previous != null) {
+            this.size -= size(key, previous);
+        }
+
+        this.softEntries.remove(key);
+        insert(key, stripped);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.softEntries.clear();
+        this.size = 0L;
+    }
+
+    public synchronized RenderCacheStatistics getStatistics() {
+        return new RenderCacheStatistics(
+                this.hits,
+                this.softHits,
+                this.misses,
+                this.evictions,
+                this.entries.size(),
+                this.size);
+    }
+
+    private static long size(Key key, RenderResult result) {
+        return key.size() + result.size();
+    }
+
+    private void insert(Key key, RenderResult result) {
+        if (size(key, result) > this.maxSize) {
+            return;
+        }
+
+        this.entries.put(key, result);
+        this.size += size(key, result);
+
+        Iterator<Map.Entry<Key, RenderResult>> iterator = this.entries.entrySet().iterator();
+        while (this.size > this.maxSize && iterator.hasNext()) {
+            Map.Entry<Key, RenderResult> eldest = iterator.next();
+            iterator.remove();
+            this.size -= size(eldest.getKey(), eldest.getValue());
+            this.evictions++;
+
+            if (this.softReferences) {
+                this.softEntries.put(eldest.getKey(), new SoftEntry(eldest.getKey(), eldest.getValue(), this.queue));
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        for (Object reference = this.queue.poll(); reference != null; reference = this.queue.poll()) {
+            SoftEntry entry = (SoftEntry) reference;
+            if (this.softEntries.get(entry.key) == entry) {
+                this.softEntries.remove(entry.key);
+            }
+        }
+    }
+}
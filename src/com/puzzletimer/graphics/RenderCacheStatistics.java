@@ -0,0 +1,40 @@
+package com.puzzletimer.graphics;
+
+public class RenderCacheStatistics {
+    public final long hits;
+    public final long softHits;
+    public final long misses;
+    public final long evictions;
+    public final int entries;
+    public final long size;
+
+    public RenderCacheStatistics(long hits, long softHits, long misses, long evictions, int entries, long size) {
+        this.hits = hits;
+        this.softHits = softHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.size = size;
+    }
+
+    public double hitRatio() {
+        long requests = this.hits + this.misses;
+        if (requests == 0L) {
+            return 0.0D;
+        }
+
+        return (double) this.hits / requests;
+    }
+
+    public String toString() {
+        return String.format(
+                "hits=%d softHits=%d misses=%d evictions=%d entries=%d size=%d hitRatio=%.3f",
+                this.hits,
+                this.softHits,
+                this.misses,
+                this.evictions,
+                this.entries,
+                this.size,
+                hitRatio());
+    }
+}
@@ -0,0 +1,6 @@
+package com.puzzletimer.graphics;
+
+public enum RenderFormat {
+    PNG,
+    ARGB
+}
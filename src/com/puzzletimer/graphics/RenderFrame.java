@@ -0,0 +1,403 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+
+class RenderFrame {
+    private static final int COLOR_CACHE_SIZE = 256;
+
+    int faceCount;
+    int vertexCount;
+    int[] faceOffsets;
+    int[] faceLengths;
+    int[] faceColors;
+    double[] depths;
+    int[] order;
+    double[] modelCoordinates;
+    double[] cameraCoordinates;
+    double[] screenX;
+    double[] screenY;
+    int[] pixelX;
+    int[] pixelY;
+    boolean[] visible;
+    boolean[] frontFacing;
+    int[] fillColors;
+    int[] outlineColors;
+    int backfacingColor;
+    long frameStart;
+    BspTree tree;
+    Vector3 viewer;
+
+    private final VertexKernel kernel;
+    private int[] sortBuffer;
+    private int[] polygonX;
+    private int[] polygonY;
+    private final MutableMatrix44 cameraMatrix;
+    private final MutableMatrix44 matrix;
+    private final MutableMatrix44 inverse;
+    private int[] bspStack;
+    private final double[] centroid;
+    private final Shader shader;
+
+    private final int[] colorKeys;
+    private final Color[] colors;
+
+    RenderFrame() {
+        this.kernel = VertexKernel.getDefault();
+        ensureFaceCapacity(0);
+        ensureVertexCapacity(0);
+        this.cameraMatrix = new MutableMatrix44();
+        this.matrix = new MutableMatrix44();
+        this.inverse = new MutableMatrix44();
+        this.bspStack = new int[0];
+        this.centroid = new double[3];
+        this.shader = new Shader();
+        this.polygonX = new int[16];
+        this.polygonY = new int[16];
+
+        this.colorKeys = new int[COLOR_CACHE_SIZE];
+        this.colors = new Color[COLOR_CACHE_SIZE];
+    }
+
+    void prepare(Mesh mesh, MutableMatrix44 modelMatrix, View view) {
+        prepare(mesh, modelMatrix, null, null, view);
+    }
+
+    void prepare(Mesh mesh, MutableMatrix44 modelMatrix, Palette palette, PuzzleState state, View view) {
+        transform(mesh, modelMatrix, view);
+        if (palette != null) {
+            recolor(palette, state);
+        }
+        sort();
+        project(view);
+        shade(view);
+    }
+
+    void transform(Mesh mesh, MutableMatrix44 modelMatrix, View view) {
+        long start = Instrumentation.start();
+        this.frameStart = start;
+        this.tree = null;
+
+        Face[] faces = mesh.faces;
+        int vertexCount = 0;
+        for (Face face : faces) {
+            vertexCount += face.vertices.length;
+        }
+
+        ensureFaceCapacity(faces.length);
+        ensureVertexCapacity(vertexCount);
+        this.faceCount = faces.length;
+        this.vertexCount = vertexCount;
+
+        double[] model = modelMatrix.values;
+        double[] c = this.modelCoordinates;
+
+        int offset = 0;
+        for (int i = 0; i < faces.length; i++) {
+            Vector3[] vertices = faces[i].vertices;
+            this.faceOffsets[i] = offset;
+            this.faceLengths[i] = vertices.length;
+            this.faceColors[i] = faces[i].color.getRGB();
+
+            double sx = 0.0D;
+            double sy = 0.0D;
+            double sz = 0.0D;
+            for (Vector3 v : vertices) {
+                int k = 3 * offset;
+                c[k] = v.x;
+                c[k + 1] = v.y;
+                c[k + 2] = v.z;
+
+                sx += v.x;
+                sy += v.y;
+                sz += v.z;
+                offset++;
+            }
+
+            double s = 1.0D / vertices.length;
+            this.depths[i] = model[8] * (s * sx) + model[9] * (s * sy) + model[10] * (s * sz) + model[11];
+        }
+
+        this.kernel.transform(
+                this.matrix.mul(view.cameraMatrix(this.cameraMatrix), modelMatrix).values,
+                this.modelCoordinates,
+                0,
+                this.cameraCoordinates,
+                0,
+                vertexCount);
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_TRANSFORM, start);
+    }
+
+    void transform(PackedMesh mesh, MutableMatrix44 modelMatrix, View view) {
+        long start = Instrumentation.start();
+        this.frameStart = start;
+        this.tree = null;
+
+        ensureFaceCapacity(mesh.faceCount);
+        ensureVertexCapacity(mesh.vertexCount);
+        this.faceCount = mesh.faceCount;
+        this.vertexCount = mesh.vertexCount;
+
+        System.arraycopy(mesh.faceOffsets, 0, this.faceOffsets, 0, mesh.faceCount);
+        System.arraycopy(mesh.faceLengths, 0, this.faceLengths, 0, mesh.faceCount);
+        System.arraycopy(mesh.colors, 0, this.faceColors, 0, mesh.faceCount);
+
+        double[] model = modelMatrix.values;
+        double[] centroid = this.centroid;
+        for (int i = 0; i < mesh.faceCount; i++) {
+            mesh.centroid(i, centroid);
+            this.depths[i] = model[8] * centroid[0] + model[9] * centroid[1] + model[10] * centroid[2] + model[11];
+        }
+
+        // packed coordinates feed the kernel directly, with no gather pass
+        this.kernel.transform(
+                this.matrix.mul(view.cameraMatrix(this.cameraMatrix), modelMatrix).values,
+                mesh.coordinates,
+                0,
+                this.cameraCoordinates,
+                0,
+                mesh.vertexCount);
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_TRANSFORM, start);
+    }
+
+    void transform(BspTree tree, MutableMatrix44 modelMatrix, View view) {
+        transform(tree.mesh, modelMatrix, view);
+        this.tree = tree;
+        this.viewer = view.viewerPosition;
+    }
+
+    void recolor(Palette palette, PuzzleState state) {
+        for (int i = 0; i < this.faceCount; i++) {
+            this.faceColors[i] = palette.getRGB(state.get(i));
+        }
+    }
+
+    void sort() {
+        if (this.tree != null) {
+            order(this.tree);
+            return;
+        }
+
+        long start = Instrumentation.start();
+
+        for (int i = 0; i < this.faceCount; i++) {
+            this.order[i] = i;
+        }
+
+        // stable merge sort, farthest face first
+        int[] source = this.order;
+        int[] target = this.sortBuffer;
+        for (int width = 1; width < this.faceCount; width *= 2) {
+            for (int low = 0; low < this.faceCount; low += 2 * width) {
+                int middle = Math.min(low + width, this.faceCount);
+                int high = Math.min(low + 2 * width, this.faceCount);
+
+                int i = low;
+                int j = middle;
+                int k = low;
+                while (i < middle && j < high) {
+                    if (Double.compare(this.depths[source[j]], this.depths[source[i]]) > 0) {
+                        target[k++] = source[j++];
+                    } else {
+                        target[k++] = source[i++];
+                    }
+                }
+
+                while (i < middle) {
+                    target[k++] = source[i++];
+                }
+
+                while (j < high) {
+                    target[k++] = source[j++];
+                }
+            }
+
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+
+        if (source != this.order) {
+            System.arraycopy(source, 0, this.order, 0, this.faceCount);
+        }
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_SORT, start);
+    }
+
+    // replaces the centroid sort with a back-to-front walk from the eye,
+    // taken back into model space; the projection's rays all meet at
+    // (-vx, vy, 0) in camera space, not at the origin
+    private void order(BspTree tree) {
+        long start = Instrumentation.start();
+
+        double[] m = this.inverse.setInverse(this.matrix).values;
+        double x = -this.viewer.x;
+        double y = this.viewer.y;
+        if (this.bspStack.length < tree.stackSize()) {
+            this.bspStack = new int[tree.stackSize()];
+        }
+        tree.order(
+                m[0] * x + m[1] * y + m[3],
+                m[4] * x + m[5] * y + m[7],
+                m[8] * x + m[9] * y + m[11],
+                this.order,
+                this.bspStack);
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_SORT, start);
+    }
+
+    void project(View view) {
+        long start = Instrumentation.start();
+
+        this.kernel.project(
+                this.cameraCoordinates,
+                0,
+                this.vertexCount,
+                view.width / 2.0D,
+                view.height / 2.0D,
+                view.viewerPosition,
+                this.screenX,
+                this.screenY);
+
+        for (int i = 0; i < this.vertexCount; i++) {
+            this.pixelX[i] = (int) this.screenX[i];
+            this.pixelY[i] = (int) this.screenY[i];
+        }
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_PROJECT, start);
+    }
+
+    void shade(View view) {
+        long start = Instrumentation.start();
+
+        this.backfacingColor = view.backfacingColor().getRGB();
+
+        LightModel lightModel = view.lightModel;
+        boolean uniform = lightModel.isUniform();
+        if (uniform) {
+            this.shader.setUniformLight(lightModel.intensity(view, 0.0D, 0.0D, -1.0D));
+        }
+
+        for (int i = 0; i < this.faceCount; i++) {
+            int offset = this.faceOffsets[i];
+            this.visible[i] = this.faceLengths[i] >= 3;
+            if (!this.visible[i]) {
+                continue;
+            }
+
+            double ax = this.screenX[offset + 1] - this.screenX[offset];
+            double ay = this.screenY[offset + 1] - this.screenY[offset];
+            double bx = this.screenX[offset + 2] - this.screenX[offset];
+            double by = this.screenY[offset + 2] - this.screenY[offset];
+            this.frontFacing[i] = ax * by - ay * bx > 0.0D;
+
+            if (this.frontFacing[i]) {
+                int ramp = this.shader.ramp(this.faceColors[i]);
+                if (uniform) {
+                    this.fillColors[i] = this.shader.uniformFill(ramp);
+                    this.outlineColors[i] = this.shader.uniformOutline(ramp);
+                } else {
+                    int level = Shader.level(intensity(lightModel, view, offset, this.faceLengths[i]));
+                    this.fillColors[i] = this.shader.fill(ramp, level);
+                    this.outlineColors[i] = this.shader.outline(ramp, level);
+                }
+            } else {
+                this.fillColors[i] = this.backfacingColor;
+                this.outlineColors[i] = this.backfacingColor;
+            }
+        }
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_SHADE, start);
+    }
+
+    // evaluates the light model with the camera space Newell normal of a
+    // face, turned towards the eye at the origin
+    private double intensity(LightModel lightModel, View view, int offset, int length) {
+        double[] c = this.cameraCoordinates;
+        double nx = 0.0D;
+        double ny = 0.0D;
+        double nz = 0.0D;
+        for (int j = 0; j < length; j++) {
+            int a = 3 * (offset + j);
+            int b = 3 * (offset + (j + 1) % length);
+            nx += (c[a + 1] - c[b + 1]) * (c[a + 2] + c[b + 2]);
+            ny += (c[a + 2] - c[b + 2]) * (c[a] + c[b]);
+            nz += (c[a] - c[b]) * (c[a + 1] + c[b + 1]);
+        }
+
+        double norm = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (norm == 0.0D) {
+            return lightModel.intensity(view, 0.0D, 0.0D, -1.0D);
+        }
+
+        int k = 3 * offset;
+        if (nx * c[k] + ny * c[k + 1] + nz * c[k + 2] > 0.0D) {
+            norm = -norm;
+        }
+
+        return lightModel.intensity(view, nx / norm, ny / norm, nz / norm);
+    }
+
+    int[] polygonX(int length) {
+        if (this.polygonX.length < length) {
+            this.polygonX = new int[length];
+        }
+
+        return this.polygonX;
+    }
+
+    int[] polygonY(int length) {
+        if (this.polygonY.length < length) {
+            this.polygonY = new int[length];
+        }
+
+        return this.polygonY;
+    }
+
+    Color color(int argb) {
+        int slot = slot(argb);
+        Color color = this.colors[slot];
+        if (color == null || this.colorKeys[slot] != argb) {
+            color = new Color(argb, true);
+            this.colors[slot] = color;
+            this.colorKeys[slot] = argb;
+        }
+
+        return color;
+    }
+
+    private static int slot(int argb) {
+        return (argb * 0x9E3779B9) >>> 24;
+    }
+
+    private void ensureFaceCapacity(int faces) {
+        if (this.order != null && this.order.length >= faces) {
+            return;
+        }
+
+        this.faceOffsets = new int[faces];
+        this.faceLengths = new int[faces];
+        this.faceColors = new int[faces];
+        this.depths = new double[faces];
+        this.order = new int[faces];
+        this.sortBuffer = new int[faces];
+        this.visible = new boolean[faces];
+        this.frontFacing = new boolean[faces];
+        this.fillColors = new int[faces];
+        this.outlineColors = new int[faces];
+    }
+
+    private void ensureVertexCapacity(int vertices) {
+        if (this.screenX != null && this.screenX.length >= vertices) {
+            return;
+        }
+
+        this.modelCoordinates = new double[3 * vertices];
+        this.cameraCoordinates = new double[3 * vertices];
+        this.screenX = new double[vertices];
+        this.screenY = new double[vertices];
+        this.pixelX = new int[vertices];
+        this.pixelY = new int[vertices];
+    }
+}
@@ -0,0 +1,11 @@
+package com.puzzletimer.graphics;
+
+public class RenderJob {
+    public final Mesh mesh;
+    public final View view;
+
+    public RenderJob(Mesh mesh, View view) {
+        this.mesh = mesh;
+        this.view = view;
+    }
+}
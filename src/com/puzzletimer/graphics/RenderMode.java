@@ -0,0 +1,6 @@
+package com.puzzletimer.graphics;
+
+public enum RenderMode {
+    PAINTER,
+    Z_BUFFER
+}
@@ -0,0 +1,38 @@
+package com.puzzletimer.graphics;
+
+public class RenderResult {
+    public final int index;
+    public final RenderJob job;
+    public final int width;
+    public final int height;
+    public final byte[] png;
+    public final int[] argb;
+    public final Throwable error;
+
+    public RenderResult(int index, RenderJob job, int width, int height, byte[] png, int[] argb, Throwable error) {
+        this.index = index;
+        this.job = job;
+        this.width = width;
+        this.height = height;
+        this.png = png;
+        this.argb = argb;
+        this.error = error;
+    }
+
+    public RenderResult setJob(int index, RenderJob job) {
+        return new RenderResult(index, job, this.width, this.height, this.png, this.argb, this.error);
+    }
+
+    public long size() {
+        long size = 64L;
+        if (this.png != null) {
+            size += this.png.length;
+        }
+
+        if (this.argb != null) {
+            size += 4L * this.argb.length;
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,594 @@
+package com.puzzletimer.graphics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// GET /render/<name>?state=<hex>&format=png|svg&width=&height=&rx=&ry=&rz=&background=<hex>&mode=painter|zbuffer
+// GET /metrics
+public class RenderServer {
+    public static final int MAX_SIZE = 2048;
+
+    private static final int DEFAULT_SIZE = 256;
+    private static final int LATENCY_BUCKETS = 32;
+
+    private static final Logger LOGGER = Logger.getLogger(RenderServer.class.getName());
+
+    // the exchange running on the current thread, if it came through the handler pool
+    private static final ThreadLocal<Accepted> ACCEPTED = new ThreadLocal<Accepted>();
+
+    private static class Entry {
+        private final PuzzleGeometry geometry;
+        private final Palette palette;
+        private final PuzzleState solved;
+
+        private Entry(PuzzleGeometry geometry, Palette palette, PuzzleState solved) {
+            this.geometry = geometry;
+            this.palette = palette;
+            this.solved = solved;
+        }
+    }
+
+    private static class Request {
+        private final Entry entry;
+        private final PuzzleState state;
+        private final View view;
+        private final RenderMode mode;
+        private final boolean svg;
+        private final String key;
+
+        private Request(Entry entry, PuzzleState state, View view, RenderMode mode, boolean svg, String key) {
+            this.entry = entry;
+            this.state = state;
+            this.view = view;
+            this.mode = mode;
+            this.svg = svg;
+            this.key = key;
+        }
+    }
+
+    // an exchange handed to the handler pool, stamped when the server accepted
+    // it so that latency includes the time spent waiting for a handler
+    private static class Accepted implements Runnable {
+        private final Runnable exchange;
+        private final long time;
+        private boolean shed;
+
+        private Accepted(Runnable exchange, long time) {
+            this.exchange = exchange;
+            this.time = time;
+            this.shed = false;
+        }
+
+        public void run() {
+            ACCEPTED.set(this);
+            try {
+                this.exchange.run();
+            } finally {
+                ACCEPTED.remove();
+            }
+        }
+    }
+
+    private static class InFlight {
+        private final FutureTask<byte[]> task;
+        private final AtomicInteger waiters;
+
+        private InFlight(FutureTask<byte[]> task) {
+            this.task = task;
+            this.waiters = new AtomicInteger();
+        }
+    }
+
+    private static class BadRequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor handlers;
+    private final ThreadPoolExecutor workers;
+    private final int maxWaiters;
+    private final Map<String, Entry> entries;
+    private final ConcurrentMap<String, InFlight> inFlight;
+    private final Map<RenderMode, Renderer> renderers;
+    private final SvgRenderer svgRenderer;
+
+    private final AtomicLong requests;
+    private final AtomicLong rendered;
+    private final AtomicLong coalesced;
+    private final AtomicLong rejected;
+    private final AtomicLong failed;
+    private final AtomicLong latencyNanos;
+    private final AtomicLong maxLatencyNanos;
+    private final AtomicLongArray latencies;
+
+    public RenderServer(InetSocketAddress address, int threads, int queueCapacity) throws IOException {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.inFlight = new ConcurrentHashMap<String, InFlight>();
+        this.renderers = new HashMap<RenderMode, Renderer>();
+        for (RenderMode mode : RenderMode.values()) {
+            this.renderers.put(mode, new Renderer(mode));
+        }
+        this.svgRenderer = new SvgRenderer();
+
+        // a full queue is rejected immediately instead of growing latency
+        this.workers = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                threadFactory("render-server-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // a handler blocks only on a render that is running or queued, so one
+        // per admitted render is enough. Requests beyond that wait in a queue
+        // of the same size; past it they are answered with 503 on the
+        // server's dispatcher thread, which only writes the response
+        int handlerThreads = threads + queueCapacity;
+        this.handlers = new ThreadPoolExecutor(
+                handlerThreads,
+                handlerThreads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(handlerThreads),
+                threadFactory("render-server-http-"),
+                new RejectedExecutionHandler() {
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        Accepted accepted = (Accepted) runnable;
+                        accepted.shed = true;
+                        accepted.run();
+                    }
+                });
+        this.handlers.allowCoreThreadTimeOut(true);
+
+        // so one hot render cannot hold every handler thread
+        this.maxWaiters = Math.max(1, handlerThreads / 2);
+
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(new Executor() {
+            public void execute(Runnable exchange) {
+                RenderServer.this.handlers.execute(new Accepted(exchange, System.nanoTime()));
+            }
+        });
+        this.server.createContext("/render/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRender(exchange);
+            }
+        });
+        this.server.createContext("/metrics", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleMetrics(exchange);
+            }
+        });
+
+        this.requests = new AtomicLong();
+        this.rendered = new AtomicLong();
+        this.coalesced = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.latencyNanos = new AtomicLong();
+        this.maxLatencyNanos = new AtomicLong();
+        this.latencies = new AtomicLongArray(LATENCY_BUCKETS);
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger next = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + this.next.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    public void register(String name, Mesh mesh) {
+        Palette palette = Palette.fromMesh(mesh);
+        PuzzleGeometry geometry = new PuzzleGeometry(mesh);
+        register(name, geometry, palette, geometry.state(mesh, palette));
+    }
+
+    public void register(String name, MeshRecipe recipe) {
+        register(name, recipe.build());
+    }
+
+    public void register(String name, PuzzleGeometry geometry, Palette palette, PuzzleState solved) {
+        geometry.check(palette, solved);
+        this.entries.put(name, new Entry(geometry, palette, solved));
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        this.server.stop(delaySeconds);
+        this.workers.shutdownNow();
+        this.handlers.shutdownNow();
+    }
+
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    public RenderServerStatistics getStatistics() {
+        long requests = this.requests.get();
+        long[] histogram = new long[LATENCY_BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = this.latencies.get(i);
+            total += histogram[i];
+        }
+
+        double max = this.maxLatencyNanos.get() / 1e6D;
+
+        return new RenderServerStatistics(
+                requests,
+                this.rendered.get(),
+                this.coalesced.get(),
+                this.rejected.get(),
+                this.failed.get(),
+                this.workers.getQueue().size(),
+                this.handlers.getQueue().size(),
+                this.workers.getActiveCount(),
+                total == 0L ? 0.0D : this.latencyNanos.get() / (total * 1e6D),
+                Math.min(max, percentile(histogram, total, 0.5D)),
+                Math.min(max, percentile(histogram, total, 0.99D)),
+                max);
+    }
+
+    // upper bound of the log2 microsecond bucket holding the percentile
+    private static double percentile(long[] histogram, long total, double fraction) {
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0L;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0L) {
+                return (1L << (i + 1)) / 1000.0D;
+            }
+        }
+
+        return 0.0D;
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        Accepted accepted = ACCEPTED.get();
+        long start = accepted == null ? System.nanoTime() : accepted.time;
+        this.requests.incrementAndGet();
+
+        try {
+            if (accepted != null && accepted.shed) {
+                throw new RejectedExecutionException("handler queue is full");
+            }
+
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                throw new BadRequestException(405, "only GET is supported");
+            }
+
+            Request request = parse(exchange);
+            byte[] body = render(request);
+            exchange.getResponseHeaders().set("Content-Type", request.svg ? "image/svg+xml" : "image/png");
+            send(exchange, 200, body);
+        } catch (BadRequestException e) {
+            sendText(exchange, e.status, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendText(exchange, 503, "render queue is full");
+        } catch (CancellationException e) {
+            this.rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendText(exchange, 503, "render queue is full");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendText(exchange, 503, "server is shutting down");
+        } catch (ExecutionException e) {
+            // the cause stays in the server log; clients only see that it failed
+            this.failed.incrementAndGet();
+            LOGGER.log(Level.WARNING, "render failed: " + exchange.getRequestURI(), e.getCause());
+            sendText(exchange, 500, "render failed");
+        } catch (RuntimeException e) {
+            this.failed.incrementAndGet();
+            LOGGER.log(Level.WARNING, "render failed: " + exchange.getRequestURI(), e);
+            sendText(exchange, 500, "render failed");
+        } finally {
+            record(System.nanoTime() - start);
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            RenderServerStatistics statistics = getStatistics();
+            StringBuilder body = new StringBuilder();
+            body.append("requests ").append(statistics.requests).append('\n');
+            body.append("rendered ").append(statistics.rendered).append('\n');
+            body.append("coalesced ").append(statistics.coalesced).append('\n');
+            body.append("rejected ").append(statistics.rejected).append('\n');
+            body.append("failed ").append(statistics.failed).append('\n');
+            body.append("queued ").append(statistics.queued).append('\n');
+            body.append("backlog ").append(statistics.backlog).append('\n');
+            body.append("active ").append(statistics.active).append('\n');
+            body.append("latency_mean_ms ").append(statistics.meanLatencyMillis).append('\n');
+            body.append("latency_p50_ms ").append(statistics.p50LatencyMillis).append('\n');
+            body.append("latency_p99_ms ").append(statistics.p99LatencyMillis).append('\n');
+            body.append("latency_max_ms ").append(statistics.maxLatencyMillis).append('\n');
+            sendText(exchange, 200, body.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] render(final Request request) throws InterruptedException, ExecutionException {
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                RenderServer.this.rendered.incrementAndGet();
+                if (request.svg) {
+                    StringBuilder output = new StringBuilder();
+                    RenderServer.this.svgRenderer.render(request.entry.geometry, request.entry.palette, request.state, request.view, output);
+                    return output.toString().getBytes("UTF-8");
+                }
+
+                return RenderServer.this.renderers.get(request.mode).renderPng(request.entry.geometry, request.entry.palette, request.state, request.view);
+            }
+        });
+
+        // identical requests already in flight share one render
+        InFlight flight = new InFlight(task);
+        InFlight existing = this.inFlight.putIfAbsent(request.key, flight);
+        if (existing != null) {
+            if (existing.waiters.incrementAndGet() > this.maxWaiters) {
+                existing.waiters.decrementAndGet();
+                throw new RejectedExecutionException("too many requests waiting for one render");
+            }
+
+            this.coalesced.incrementAndGet();
+            try {
+                return existing.task.get();
+            } finally {
+                existing.waiters.decrementAndGet();
+            }
+        }
+
+        try {
+            this.workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            // wake up anything that coalesced onto the rejected task
+            task.cancel(false);
+            this.inFlight.remove(request.key, flight);
+            throw e;
+        }
+
+        try {
+            return task.get();
+        } finally {
+            this.inFlight.remove(request.key, flight);
+        }
+    }
+
+    private Request parse(HttpExchange exchange) throws BadRequestException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring("/render/".length());
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            throw new BadRequestException(404, "unknown geometry: " + name);
+        }
+
+        Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+
+        String format = parameter(parameters, "format", "png").toLowerCase(Locale.ROOT);
+        if (!format.equals("png") && !format.equals("svg")) {
+            throw new BadRequestException(400, "format must be png or svg");
+        }
+
+        String modeName = parameter(parameters, "mode", "painter").toLowerCase(Locale.ROOT);
+        RenderMode mode;
+        if (modeName.equals("painter")) {
+            mode = RenderMode.PAINTER;
+        } else if (modeName.equals("zbuffer")) {
+            mode = RenderMode.Z_BUFFER;
+        } else {
+            throw new BadRequestException(400, "mode must be painter or zbuffer");
+        }
+
+        int width = integer(parameters, "width", DEFAULT_SIZE);
+        int height = integer(parameters, "height", DEFAULT_SIZE);
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new BadRequestException(400, "width and height must be between 1 and " + MAX_SIZE);
+        }
+
+        Vector3 rotation = new Vector3(
+                number(parameters, "rx"),
+                number(parameters, "ry"),
+                number(parameters, "rz"));
+        Color background = color(parameter(parameters, "background", "ffffff"));
+
+        PuzzleState state = entry.solved;
+        String stateHex = parameters.get("state");
+        if (stateHex != null) {
+            state = state(stateHex);
+            try {
+                entry.geometry.check(entry.palette, state);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(400, e.getMessage());
+            }
+        }
+
+        View view = new View()
+                .setSize(width, height)
+                .setCameraRotation(rotation)
+                .setBackground(background);
+
+        // canonical form of the parsed request, so equivalent URLs coalesce
+        String key = name + '|' + format + '|' + mode + '|' + width + 'x' + height + '|' +
+                rotation.x + ',' + rotation.y + ',' + rotation.z + '|' +
+                Integer.toHexString(background.getRGB()) + '|' + (stateHex == null ? "" : stateHex.toLowerCase(Locale.ROOT));
+
+        return new Request(entry, state, view, mode, format.equals("svg"), key);
+    }
+
+    private static Map<String, String> parameters(String query) throws BadRequestException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        try {
+            for (String pair : query.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator < 0) {
+                    parameters.put(URLDecoder.decode(pair, "UTF-8"), "");
+                } else {
+                    parameters.put(
+                            URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                            URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(400, "malformed query string");
+        }
+
+        return parameters;
+    }
+
+    private static String parameter(Map<String, String> parameters, String name, String defaultValue) {
+        String value = parameters.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int defaultValue) throws BadRequestException {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(400, name + " must be an integer");
+        }
+    }
+
+    private static double number(Map<String, String> parameters, String name) throws BadRequestException {
+        String value = parameters.get(name);
+        if (value == null) {
+            return 0.0D;
+        }
+
+        try {
+            double number = Double.parseDouble(value);
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                throw new NumberFormatException();
+            }
+
+            return number;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(400, name + " must be a finite number");
+        }
+    }
+
+    private static Color color(String value) throws BadRequestException {
+        try {
+            if (value.length() == 6) {
+                return new Color(Integer.parseInt(value, 16));
+            }
+            if (value.length() == 8) {
+                return new Color((int) Long.parseLong(value, 16), true);
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+
+        throw new BadRequestException(400, "background must be rrggbb or aarrggbb");
+    }
+
+    // two hex digits per face
+    private static PuzzleState state(String value) throws BadRequestException {
+        if (value.length() % 2 != 0) {
+            throw new BadRequestException(400, "state must have two hex digits per face");
+        }
+
+        byte[] indices = new byte[value.length() / 2];
+        for (int i = 0; i < indices.length; i++) {
+            int high = Character.digit(value.charAt(2 * i), 16);
+            int low = Character.digit(value.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new BadRequestException(400, "state must be hexadecimal");
+            }
+
+            indices[i] = (byte) (high << 4 | low);
+        }
+
+        return new PuzzleState(indices);
+    }
+
+    private void record(long nanos) {
+        this.latencyNanos.addAndGet(nanos);
+
+        long max = this.maxLatencyNanos.get();
+        while (nanos > max && !this.maxLatencyNanos.compareAndSet(max, nanos)) {
+            max = this.maxLatencyNanos.get();
+        }
+
+        long micros = Math.max(1L, nanos / 1000L);
+        this.latencies.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, (text + "\n").getBytes("UTF-8"));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream output = exchange.getResponseBody();
+        try {
+            output.write(body);
+        } finally {
+            output.close();
+        }
+    }
+}
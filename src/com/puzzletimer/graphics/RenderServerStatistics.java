@@ -0,0 +1,49 @@
+package com.puzzletimer.graphics;
+
+public class RenderServerStatistics {
+    public final long requests;
+    public final long rendered;
+    public final long coalesced;
+    public final long rejected;
+    public final long failed;
+    public final int queued;
+    public final int backlog;
+    public final int active;
+    public final double meanLatencyMillis;
+    public final double p50LatencyMillis;
+    public final double p99LatencyMillis;
+    public final double maxLatencyMillis;
+
+    public RenderServerStatistics(long requests, long rendered, long coalesced, long rejected, long failed, int queued, int backlog, int active, double meanLatencyMillis, double p50LatencyMillis, double p99LatencyMillis, double maxLatencyMillis) {
+        this.requests = requests;
+        this.rendered = rendered;
+        this.coalesced = coalesced;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.queued = queued;
+        this.backlog = backlog;
+        this.active = active;
+        this.meanLatencyMillis = meanLatencyMillis;
+        this.p50LatencyMillis = p50LatencyMillis;
+        this.p99LatencyMillis = p99LatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    public String toString() {
+        return String.format(
+                "requests=%d rendered=%d coalesced=%d rejected=%d failed=%d queued=%d backlog=%d active=%d " +
+                        "latency mean=%.3fms p50<=%.3fms p99<=%.3fms max=%.3fms",
+                this.requests,
+                this.rendered,
+                this.coalesced,
+                this.rejected,
+                this.failed,
+                this.queued,
+                this.backlog,
+                this.active,
+                this.meanLatencyMillis,
+                this.p50LatencyMillis,
+                this.p99LatencyMillis,
+                this.maxLatencyMillis);
+    }
+}
@@ -0,0 +1,294 @@
+package com.puzzletimer.graphics;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class Renderer {
+    private static final ThreadLocal<RenderFrame> FRAMES = new ThreadLocal<RenderFrame>() {
+        protected RenderFrame initialValue() {
+            return new RenderFrame();
+        }
+    };
+
+    private static final ThreadLocal<Rasterizer> RASTERIZERS = new ThreadLocal<Rasterizer>() {
+        protected Rasterizer initialValue() {
+            return new Rasterizer();
+        }
+    };
+
+    public final RenderMode mode;
+    public final boolean antialiasing;
+
+    public Renderer() {
+        this(RenderMode.PAINTER, true);
+    }
+
+    public Renderer(RenderMode mode) {
+        this(mode, true);
+    }
+
+    public Renderer(RenderMode mode, boolean antialiasing) {
+        this.mode = mode;
+        this.antialiasing = antialiasing;
+    }
+
+    public BufferedImage render(Mesh mesh, View view) {
+        BufferedImage image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+        render(mesh, view, image);
+
+        return image;
+    }
+
+    public int[] renderArgb(Mesh mesh, View view) {
+        return ((DataBufferInt) render(mesh, view).getRaster().getDataBuffer()).getData();
+    }
+
+    public byte[] renderPng(Mesh mesh, View view) {
+        return png(render(mesh, view));
+    }
+
+    public void render(Mesh mesh, View view, BufferedImage image) {
+        render(load(mesh, new MutableMatrix44(), view), view, image);
+    }
+
+    public void render(Mesh mesh, View view, Graphics2D g2) {
+        draw(load(mesh, new MutableMatrix44(), view), view, g2);
+    }
+
+    public BufferedImage render(TransformedMesh mesh, View view) {
+        BufferedImage image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+        render(mesh, view, image);
+
+        return image;
+    }
+
+    public void render(TransformedMesh mesh, View view, BufferedImage image) {
+        render(load(mesh.base, new MutableMatrix44(mesh.matrix), view), view, image);
+    }
+
+    public void render(TransformedMesh mesh, View view, Graphics2D g2) {
+        draw(load(mesh.base, new MutableMatrix44(mesh.matrix), view), view, g2);
+    }
+
+    public BufferedImage render(PackedMesh mesh, View view) {
+        BufferedImage image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+        render(mesh, view, image);
+
+        return image;
+    }
+
+    public void render(PackedMesh mesh, View view, BufferedImage image) {
+        render(load(mesh, view), view, image);
+    }
+
+    public void render(PackedMesh mesh, View view, Graphics2D g2) {
+        draw(load(mesh, view), view, g2);
+    }
+
+    public BufferedImage render(BspTree tree, Matrix44 modelMatrix, View view) {
+        BufferedImage image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+        render(tree, modelMatrix, view, image);
+
+        return image;
+    }
+
+    public void render(BspTree tree, Matrix44 modelMatrix, View view, BufferedImage image) {
+        render(load(tree, modelMatrix, view), view, image);
+    }
+
+    public void render(BspTree tree, Matrix44 modelMatrix, View view, Graphics2D g2) {
+        draw(load(tree, modelMatrix, view), view, g2);
+    }
+
+    // finds the face under the screen point (x, y) of a view rendering the
+    // hierarchy's mesh with the model matrix; the ray is cast in mesh space,
+    // so the hierarchy stays valid however the mesh is rotated
+    public static PickResult pick(Bvh bvh, Matrix44 modelMatrix, View view, double x, double y) {
+        MutableMatrix44 matrix = new MutableMatrix44().mul(
+                view.cameraMatrix(new MutableMatrix44()),
+                new MutableMatrix44(modelMatrix));
+        MutableMatrix44 inverse = new MutableMatrix44().setInverse(matrix);
+
+        // inverts the projection: the points of the ray are origin + z * direction
+        Vector3 viewer = view.viewerPosition;
+        Vector3 origin = new Vector3(-viewer.x, viewer.y, 0.0D);
+        Vector3 direction = new Vector3(
+                -(x - view.width / 2.0D) / viewer.z,
+                (y - view.height / 2.0D) / viewer.z,
+                1.0D);
+
+        Vector3 meshOrigin = inverse.mul(origin);
+        return bvh.intersect(meshOrigin, inverse.mul(origin.add(direction)).sub(meshOrigin));
+    }
+
+    public BufferedImage render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view) {
+        BufferedImage image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+        render(geometry, palette, state, view, image);
+
+        return image;
+    }
+
+    public byte[] renderPng(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view) {
+        return png(render(geometry, palette, state, view));
+    }
+
+    public void render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, BufferedImage image) {
+        render(load(geometry, palette, state, view), view, image);
+    }
+
+    public void render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, Graphics2D g2) {
+        draw(load(geometry, palette, state, view), view, g2);
+    }
+
+    private static byte[] png(BufferedImage image) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static RenderFrame load(Mesh mesh, MutableMatrix44 modelMatrix, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.transform(mesh, modelMatrix, view);
+
+        return frame;
+    }
+
+    private static RenderFrame load(PackedMesh mesh, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.transform(mesh, new MutableMatrix44(), view);
+
+        return frame;
+    }
+
+    private static RenderFrame load(BspTree tree, Matrix44 modelMatrix, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.transform(tree, new MutableMatrix44(modelMatrix), view);
+
+        return frame;
+    }
+
+    private static RenderFrame load(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view) {
+        geometry.check(palette, state);
+
+        RenderFrame frame = load(geometry.mesh, new MutableMatrix44(), view);
+        frame.recolor(palette, state);
+
+        return frame;
+    }
+
+    private void render(RenderFrame frame, View view, BufferedImage image) {
+        if (this.mode == RenderMode.Z_BUFFER) {
+            rasterize(frame, view, image);
+            return;
+        }
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            clear(view, image, g2);
+            draw(frame, view, g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private static void clear(View view, BufferedImage image, Graphics2D g2) {
+        g2.setComposite(AlphaComposite.Src);
+        g2.setColor(view.background);
+        g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2.setComposite(AlphaComposite.SrcOver);
+    }
+
+    private void draw(RenderFrame frame, View view, Graphics2D g2) {
+        if (this.mode == RenderMode.Z_BUFFER) {
+            // an empty view, such as a panel not laid out yet, has no buffer to draw
+            if (view.width <= 0 || view.height <= 0) {
+                return;
+            }
+
+            // transparent background so the buffer composites over what is already drawn
+            Rasterizer rasterizer = RASTERIZERS.get();
+            BufferedImage image = rasterizer.image(view.width, view.height);
+            rasterize(frame, view, 0, Rasterizer.pixels(image));
+            g2.drawImage(image, 0, 0, null);
+            return;
+        }
+
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING,
+                this.antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        frame.sort();
+        frame.project(view);
+        frame.shade(view);
+        fill(frame, g2);
+        Instrumentation.recordFrame(frame.frameStart, frame.faceCount, frame.vertexCount);
+    }
+
+    private void rasterize(RenderFrame frame, View view, BufferedImage image) {
+        if (view.width <= 0 || view.height <= 0) {
+            // as in the painter path, the image is only cleared
+            Graphics2D g2 = image.createGraphics();
+            try {
+                clear(view, image, g2);
+            } finally {
+                g2.dispose();
+            }
+            return;
+        }
+
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB && image.getWidth() == view.width && image.getHeight() == view.height) {
+            rasterize(frame, view, view.background.getRGB(), Rasterizer.pixels(image));
+            return;
+        }
+
+        BufferedImage buffer = RASTERIZERS.get().image(view.width, view.height);
+        int[] pixels = Rasterizer.pixels(buffer);
+        rasterize(frame, view, view.background.getRGB(), pixels);
+        image.setRGB(0, 0, Math.min(view.width, image.getWidth()), Math.min(view.height, image.getHeight()), pixels, 0, view.width);
+    }
+
+    private void rasterize(RenderFrame frame, View view, int background, int[] pixels) {
+        // the depth buffer resolves visibility, so the face sort is skipped
+        frame.project(view);
+        frame.shade(view);
+        RASTERIZERS.get().render(frame, view, this.antialiasing, background, pixels);
+        Instrumentation.recordFrame(frame.frameStart, frame.faceCount, frame.vertexCount);
+    }
+
+    private static void fill(RenderFrame frame, Graphics2D g2) {
+        long start = Instrumentation.start();
+        for (int i = 0; i < frame.faceCount; i++) {
+            int face = frame.order[i];
+            if (!frame.visible[face]) {
+                continue;
+            }
+
+            int offset = frame.faceOffsets[face];
+            int length = frame.faceLengths[face];
+            int[] xs = frame.polygonX(length);
+            int[] ys = frame.polygonY(length);
+            System.arraycopy(frame.pixelX, offset, xs, 0, length);
+            System.arraycopy(frame.pixelY, offset, ys, 0, length);
+
+            g2.setColor(frame.color(frame.fillColors[face]));
+            g2.fillPolygon(xs, ys, length);
+
+            if (frame.frontFacing[face]) {
+                g2.setColor(frame.color(frame.outlineColors[face]));
+                g2.drawPolygon(xs, ys, length);
+            }
+        }
+
+        Instrumentation.record(Instrumentation.Operation.RENDER_FILL, start);
+    }
+}
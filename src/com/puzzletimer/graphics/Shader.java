@@ -0,0 +1,195 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+// per face color, a ramp of fill and outline colors over quantized light
+// intensity; entries are converted from HSB on first use and then reused.
+// Uniform light models shade every face with one exact intensity instead,
+// kept in a separate entry per color that is reset when the intensity changes
+final class Shader {
+    static final int LEVELS = 256;
+
+    private static final int MAX_COLORS = 1024;
+
+    private int capacity;
+    private int count;
+    private int[] keys;
+    private int[] slots;
+    private float[] hsb;
+    private int[] fills;
+    private int[] outlines;
+
+    private double uniformLight;
+    private int[] uniformFills;
+    private int[] uniformOutlines;
+
+    Shader() {
+        this.uniformLight = Double.NaN;
+        clear(16);
+    }
+
+    static double clamp(double intensity) {
+        if (!(intensity > 0.0D)) {
+            return 0.0D;
+        }
+
+        return Math.min(intensity, 1.0D);
+    }
+
+    static int level(double intensity) {
+        return (int) (clamp(intensity) * (LEVELS - 1) + 0.5D);
+    }
+
+    // returns the ramp of a color, for use with fill and outline
+    int ramp(int rgb) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(rgb) & mask; ; i = (i + 1) & mask) {
+            if (this.slots[i] < 0) {
+                return add(rgb, i);
+            }
+
+            if (this.keys[i] == rgb) {
+                return this.slots[i];
+            }
+        }
+    }
+
+    int fill(int ramp, int level) {
+        int k = ramp * LEVELS + level;
+        if (this.fills[k] == 0) {
+            shade(ramp, level);
+        }
+
+        return this.fills[k];
+    }
+
+    int outline(int ramp, int level) {
+        int k = ramp * LEVELS + level;
+        if (this.fills[k] == 0) {
+            shade(ramp, level);
+        }
+
+        return this.outlines[k];
+    }
+
+    void setUniformLight(double intensity) {
+        double light = clamp(intensity);
+        if (Double.compare(light, this.uniformLight) != 0) {
+            this.uniformLight = light;
+            Arrays.fill(this.uniformFills, 0);
+        }
+    }
+
+    int uniformFill(int ramp) {
+        if (this.uniformFills[ramp] == 0) {
+            shade(ramp, this.uniformLight, this.uniformFills, this.uniformOutlines, ramp);
+        }
+
+        return this.uniformFills[ramp];
+    }
+
+    int uniformOutline(int ramp) {
+        if (this.uniformFills[ramp] == 0) {
+            shade(ramp, this.uniformLight, this.uniformFills, this.uniformOutlines, ramp);
+        }
+
+        return this.uniformOutlines[ramp];
+    }
+
+    private void shade(int ramp, int level) {
+        int k = ramp * LEVELS + level;
+        shade(ramp, (double) level / (LEVELS - 1), this.fills, this.outlines, k);
+    }
+
+    private void shade(int ramp, double light, int[] fills, int[] outlines, int k) {
+        float h = this.hsb[3 * ramp];
+        float s = this.hsb[3 * ramp + 1];
+        float b = this.hsb[3 * ramp + 2];
+
+        // HSBtoRGB always sets the alpha bits, so zero marks an empty entry
+        fills[k] = Color.HSBtoRGB(
+                h,
+                (float) (0.875D + 0.125D * light) * s,
+                (float) (0.875D + 0.125D * light) * b);
+        outlines[k] = Color.HSBtoRGB(
+                h,
+                (float) (0.9D * (0.875D + 0.125D * light) * s),
+                (float) (0.9D * (0.875D + 0.125D * light) * b));
+    }
+
+    private int add(int rgb, int index) {
+        if (this.count == MAX_COLORS) {
+            // a stream of distinct colors would otherwise grow without bound
+            clear(this.capacity);
+            return ramp(rgb);
+        }
+
+        if (this.count == this.capacity) {
+            grow();
+            return ramp(rgb);
+        }
+
+        int ramp = this.count++;
+        this.keys[index] = rgb;
+        this.slots[index] = ramp;
+
+        float[] hsb = Color.RGBtoHSB((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff, null);
+        System.arraycopy(hsb, 0, this.hsb, 3 * ramp, 3);
+
+        return ramp;
+    }
+
+    private void clear(int capacity) {
+        this.capacity = capacity;
+        this.count = 0;
+        this.keys = new int[2 * capacity];
+        this.slots = new int[2 * capacity];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = -1;
+        }
+        this.hsb = new float[3 * capacity];
+        this.fills = new int[capacity * LEVELS];
+        this.outlines = new int[capacity * LEVELS];
+        this.uniformFills = new int[capacity];
+        this.uniformOutlines = new int[capacity];
+    }
+
+    // doubles the table, keeping the ramps computed so far
+    private void grow() {
+        int[] keys = this.keys;
+        int[] slots = this.slots;
+        float[] hsb = this.hsb;
+        int[] fills = this.fills;
+        int[] outlines = this.outlines;
+        int[] uniformFills = this.uniformFills;
+        int[] uniformOutlines = this.uniformOutlines;
+        int count = this.count;
+
+        clear(2 * this.capacity);
+        System.arraycopy(hsb, 0, this.hsb, 0, hsb.length);
+        System.arraycopy(fills, 0, this.fills, 0, fills.length);
+        System.arraycopy(outlines, 0, this.outlines, 0, outlines.length);
+        System.arraycopy(uniformFills, 0, this.uniformFills, 0, uniformFills.length);
+        System.arraycopy(uniformOutlines, 0, this.uniformOutlines, 0, uniformOutlines.length);
+
+        int mask = this.keys.length - 1;
+        for (int j = 0; j < keys.length; j++) {
+            if (slots[j] < 0) {
+                continue;
+            }
+
+            int i = hash(keys[j]) & mask;
+            while (this.slots[i] >= 0) {
+                i = (i + 1) & mask;
+            }
+            this.keys[i] = keys[j];
+            this.slots[i] = slots[j];
+        }
+        this.count = count;
+    }
+
+    private static int hash(int rgb) {
+        return (rgb * 0x9E3779B9) >>> 16;
+    }
+}
@@ -0,0 +1,354 @@
+package com.puzzletimer.graphics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+public class SvgRenderer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<RenderFrame> FRAMES = new ThreadLocal<RenderFrame>() {
+        protected RenderFrame initialValue() {
+            return new RenderFrame();
+        }
+    };
+
+    public final int precision;
+    private final long scale;
+
+    public SvgRenderer() {
+        this(1);
+    }
+
+    public SvgRenderer(int precision) {
+        if (precision < 0 || precision > 6) {
+            throw new IllegalArgumentException("precision must be between 0 and 6");
+        }
+
+        this.precision = precision;
+
+        long scale = 1L;
+        for (int i = 0; i < precision; i++) {
+            scale *= 10L;
+        }
+        this.scale = scale;
+    }
+
+    public String render(Mesh mesh, View view) {
+        return svg(prepare(mesh, new MutableMatrix44(), view), view);
+    }
+
+    public void render(Mesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        render(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void render(Mesh mesh, View view, Appendable output) throws IOException {
+        writeSvg(prepare(mesh, new MutableMatrix44(), view), view, output);
+    }
+
+    public String render(TransformedMesh mesh, View view) {
+        return svg(prepare(mesh.base, new MutableMatrix44(mesh.matrix), view), view);
+    }
+
+    public void render(TransformedMesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        render(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void render(TransformedMesh mesh, View view, Appendable output) throws IOException {
+        writeSvg(prepare(mesh.base, new MutableMatrix44(mesh.matrix), view), view, output);
+    }
+
+    public String render(PackedMesh mesh, View view) {
+        return svg(prepare(mesh, view), view);
+    }
+
+    public void render(PackedMesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        render(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void render(PackedMesh mesh, View view, Appendable output) throws IOException {
+        writeSvg(prepare(mesh, view), view, output);
+    }
+
+    public String render(BspTree tree, Matrix44 modelMatrix, View view) {
+        return svg(prepare(tree, modelMatrix, view), view);
+    }
+
+    public void render(BspTree tree, Matrix44 modelMatrix, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        render(tree, modelMatrix, view, writer);
+        writer.flush();
+    }
+
+    public void render(BspTree tree, Matrix44 modelMatrix, View view, Appendable output) throws IOException {
+        writeSvg(prepare(tree, modelMatrix, view), view, output);
+    }
+
+    public String render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view) {
+        return svg(prepare(geometry, palette, state, view), view);
+    }
+
+    public void render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        render(geometry, palette, state, view, writer);
+        writer.flush();
+    }
+
+    public void render(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, Appendable output) throws IOException {
+        writeSvg(prepare(geometry, palette, state, view), view, output);
+    }
+
+    // compact format: a "width height background" header line, then one
+    // "fill outline x,y x,y ..." line per face in drawing order, where
+    // colors are rrggbb (or aarrggbb when translucent) and a missing
+    // outline is written as "-"
+
+    public void renderPaths(Mesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        renderPaths(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void renderPaths(Mesh mesh, View view, Appendable output) throws IOException {
+        writePaths(prepare(mesh, new MutableMatrix44(), view), view, output);
+    }
+
+    public void renderPaths(TransformedMesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        renderPaths(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void renderPaths(TransformedMesh mesh, View view, Appendable output) throws IOException {
+        writePaths(prepare(mesh.base, new MutableMatrix44(mesh.matrix), view), view, output);
+    }
+
+    public void renderPaths(PackedMesh mesh, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        renderPaths(mesh, view, writer);
+        writer.flush();
+    }
+
+    public void renderPaths(PackedMesh mesh, View view, Appendable output) throws IOException {
+        writePaths(prepare(mesh, view), view, output);
+    }
+
+    public void renderPaths(BspTree tree, Matrix44 modelMatrix, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        renderPaths(tree, modelMatrix, view, writer);
+        writer.flush();
+    }
+
+    public void renderPaths(BspTree tree, Matrix44 modelMatrix, View view, Appendable output) throws IOException {
+        writePaths(prepare(tree, modelMatrix, view), view, output);
+    }
+
+    public void renderPaths(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+        renderPaths(geometry, palette, state, view, writer);
+        writer.flush();
+    }
+
+    public void renderPaths(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view, Appendable output) throws IOException {
+        writePaths(prepare(geometry, palette, state, view), view, output);
+    }
+
+    private static RenderFrame prepare(Mesh mesh, MutableMatrix44 modelMatrix, View view) {
+        return prepare(mesh, modelMatrix, null, null, view);
+    }
+
+    private static RenderFrame prepare(Mesh mesh, MutableMatrix44 modelMatrix, Palette palette, PuzzleState state, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.prepare(mesh, modelMatrix, palette, state, view);
+
+        return frame;
+    }
+
+    private static RenderFrame prepare(PuzzleGeometry geometry, Palette palette, PuzzleState state, View view) {
+        geometry.check(palette, state);
+        return prepare(geometry.mesh, new MutableMatrix44(), palette, state, view);
+    }
+
+    private static RenderFrame prepare(PackedMesh mesh, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.transform(mesh, new MutableMatrix44(), view);
+
+        return draw(frame, view);
+    }
+
+    private static RenderFrame prepare(BspTree tree, Matrix44 modelMatrix, View view) {
+        RenderFrame frame = FRAMES.get();
+        frame.transform(tree, new MutableMatrix44(modelMatrix), view);
+
+        return draw(frame, view);
+    }
+
+    private static RenderFrame draw(RenderFrame frame, View view) {
+        frame.sort();
+        frame.project(view);
+        frame.shade(view);
+
+        return frame;
+    }
+
+    private String svg(RenderFrame frame, View view) {
+        StringBuilder output = new StringBuilder();
+        try {
+            writeSvg(frame, view, output);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return output.toString();
+    }
+
+    private void writeSvg(RenderFrame frame, View view, Appendable output) throws IOException {
+        output.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        appendInteger(output, view.width);
+        output.append("\" height=\"");
+        appendInteger(output, view.height);
+        output.append("\" viewBox=\"0 0 ");
+        appendInteger(output, view.width);
+        output.append(' ');
+        appendInteger(output, view.height);
+        output.append("\">\n");
+
+        int background = view.background.getRGB();
+        if ((background >>> 24) != 0) {
+            output.append("<rect width=\"100%\" height=\"100%\"");
+            appendPaint(output, "fill", background);
+            output.append("/>\n");
+        }
+
+        output.append("<g stroke=\"none\" stroke-width=\"1\">\n");
+        for (int i = 0; i < frame.faceCount; i++) {
+            int face = frame.order[i];
+            if (!frame.visible[face]) {
+                continue;
+            }
+
+            output.append("<path d=\"");
+            int offset = frame.faceOffsets[face];
+            for (int j = offset; j < offset + frame.faceLengths[face]; j++) {
+                output.append(j == offset ? 'M' : 'L');
+                appendNumber(output, frame.screenX[j], this.scale);
+                output.append(' ');
+                appendNumber(output, frame.screenY[j], this.scale);
+            }
+            output.append("Z\"");
+
+            appendPaint(output, "fill", frame.fillColors[face]);
+            if (frame.frontFacing[face]) {
+                appendPaint(output, "stroke", frame.outlineColors[face]);
+            }
+            output.append("/>\n");
+        }
+        output.append("</g>\n</svg>\n");
+        Instrumentation.recordFrame(frame.frameStart, frame.faceCount, frame.vertexCount);
+    }
+
+    private void writePaths(RenderFrame frame, View view, Appendable output) throws IOException {
+        appendInteger(output, view.width);
+        output.append(' ');
+        appendInteger(output, view.height);
+        output.append(' ');
+        appendColor(output, view.background.getRGB());
+        output.append('\n');
+
+        for (int i = 0; i < frame.faceCount; i++) {
+            int face = frame.order[i];
+            if (!frame.visible[face]) {
+                continue;
+            }
+
+            appendColor(output, frame.fillColors[face]);
+            output.append(' ');
+            if (frame.frontFacing[face]) {
+                appendColor(output, frame.outlineColors[face]);
+            } else {
+                output.append('-');
+            }
+
+            int offset = frame.faceOffsets[face];
+            for (int j = offset; j < offset + frame.faceLengths[face]; j++) {
+                output.append(' ');
+                appendNumber(output, frame.screenX[j], this.scale);
+                output.append(',');
+                appendNumber(output, frame.screenY[j], this.scale);
+            }
+            output.append('\n');
+        }
+
+        Instrumentation.recordFrame(frame.frameStart, frame.faceCount, frame.vertexCount);
+    }
+
+    private static void appendPaint(Appendable output, String attribute, int argb) throws IOException {
+        output.append(' ').append(attribute).append("=\"#");
+        appendHex(output, argb, 6);
+        output.append('"');
+
+        int alpha = argb >>> 24;
+        if (alpha != 0xff) {
+            output.append(' ').append(attribute).append("-opacity=\"");
+            appendNumber(output, alpha / 255.0D, 1000L);
+            output.append('"');
+        }
+    }
+
+    private static void appendColor(Appendable output, int argb) throws IOException {
+        appendHex(output, argb, (argb >>> 24) == 0xff ? 6 : 8);
+    }
+
+    private static void appendHex(Appendable output, int value, int digits) throws IOException {
+        for (int shift = 4 * (digits - 1); shift >= 0; shift -= 4) {
+            output.append(HEX[(value >>> shift) & 0xf]);
+        }
+    }
+
+    private static void appendInteger(Appendable output, long value) throws IOException {
+        if (value < 0) {
+            output.append('-');
+            value = -value;
+        }
+
+        long divisor = 1L;
+        while (value / divisor >= 10L) {
+            divisor *= 10L;
+        }
+
+        for (; divisor > 0L; divisor /= 10L) {
+            output.append((char) ('0' + (value / divisor) % 10L));
+        }
+    }
+
+    private static void appendNumber(Appendable output, double value, long scale) throws IOException {
+        long scaled = Math.round(value * scale);
+        if (scaled < 0L) {
+            output.append('-');
+            scaled = -scaled;
+        }
+
+        appendInteger(output, scaled / scale);
+
+        long fraction = scaled % scale;
+        if (fraction == 0L) {
+            return;
+        }
+
+        output.append('.');
+        for (long divisor = scale / 10L; fraction > 0L; divisor /= 10L) {
+            output.append((char) ('0' + fraction / divisor));
+            fraction %= divisor;
+        }
+    }
+}
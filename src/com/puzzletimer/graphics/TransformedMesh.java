@@ -0,0 +1,39 @@
+package com.puzzletimer.graphics;
+
+public class TransformedMesh {
+    private static final Matrix44 IDENTITY = new Matrix44(
+            new double[][]{
+                    {1.0D, 0.0D, 0.0D, 0.0D},
+                    {0.0D, 1.0D, 0.0D, 0.0D},
+                    {0.0D, 0.0D, 1.0D, 0.0D},
+                    {0.0D, 0.0D, 0.0D, 1.0D}});
+
+    public final Mesh base;
+    public final Matrix44 matrix;
+    private volatile Mesh mesh;
+
+    public TransformedMesh(Mesh base) {
+        this(base, IDENTITY);
+        this.mesh = base;
+    }
+
+    public TransformedMesh(Mesh base, Matrix44 matrix) {
+        this.base = base;
+        this.matrix = matrix;
+        this.mesh = null;
+    }
+
+    public TransformedMesh transform(Matrix44 matrix) {
+        return new TransformedMesh(this.base, matrix.mul(this.matrix));
+    }
+
+    public Mesh getMesh() {
+        Mesh mesh = this.mesh;
+        if (mesh == null) {
+            mesh = this.base.transform(this.matrix);
+            this.mesh = mesh;
+        }
+
+        return mesh;
+    }
+}
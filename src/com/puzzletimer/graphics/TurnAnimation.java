@@ -0,0 +1,83 @@
+package com.puzzletimer.graphics;
+
+public class TurnAnimation {
+    public final Move move;
+    public final Easing easing;
+
+    private final PackedMesh source;
+    private final PackedMesh frame;
+    private final MutableMatrix44 matrix;
+
+    // runs of consecutive moving vertices as (offset, length) pairs
+    private final int[] runs;
+    private final int runCount;
+    private final int movingFaces;
+
+    public TurnAnimation(Mesh mesh, Move move, Easing easing) {
+        this(PackedMesh.fromMesh(mesh), move, easing, new PackedMesh());
+    }
+
+    public TurnAnimation(PackedMesh source, Move move, Easing easing, PackedMesh frame) {
+        this.move = move;
+        this.easing = easing;
+        this.source = source;
+        this.frame = frame.set(source);
+        this.matrix = new MutableMatrix44();
+
+        // same partition as Mesh.rotateHalfspace, computed once per move
+        Plane plane = move.plane;
+        double[] centroid = new double[3];
+        int[] runs = new int[16];
+        int runCount = 0;
+        int movingFaces = 0;
+        for (int i = 0; i < source.faceCount; i++) {
+            source.centroid(i, centroid);
+            double d = (centroid[0] - plane.p.x) * plane.n.x +
+                    (centroid[1] - plane.p.y) * plane.n.y +
+                    (centroid[2] - plane.p.z) * plane.n.z;
+            if (d < 0.0D) {
+                continue;
+            }
+
+            movingFaces++;
+            int offset = source.faceOffsets[i];
+            int length = source.faceLengths[i];
+            if (runCount > 0 && runs[2 * runCount - 2] + runs[2 * runCount - 1] == offset) {
+                runs[2 * runCount - 1] += length;
+                continue;
+            }
+
+            if (2 * runCount == runs.length) {
+                int[] newRuns = new int[2 * runs.length];
+                System.arraycopy(runs, 0, newRuns, 0, runs.length);
+                runs = newRuns;
+            }
+
+            runs[2 * runCount] = offset;
+            runs[2 * runCount + 1] = length;
+            runCount++;
+        }
+
+        this.runs = runs;
+        this.runCount = runCount;
+        this.movingFaces = movingFaces;
+    }
+
+    public int getMovingFaceCount() {
+        return this.movingFaces;
+    }
+
+    // the returned mesh is reused by the next call
+    public PackedMesh frame(double t) {
+        double progress = t <= 0.0D ? 0.0D : t >= 1.0D ? 1.0D : this.easing.apply(t);
+        Vector3 n = this.move.plane.n;
+        this.matrix.setRotation(n.x, n.y, n.z, progress * this.move.angle);
+
+        for (int i = 0; i < this.runCount; i++) {
+            int offset = this.runs[2 * i];
+            this.matrix.transform(this.source.coordinates, offset, this.frame.coordinates, offset, this.runs[2 * i + 1]);
+        }
+
+        return this.frame;
+    }
+}
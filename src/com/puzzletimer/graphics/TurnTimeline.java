@@ -0,0 +1,86 @@
+package com.puzzletimer.graphics;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+public class TurnTimeline {
+    private static class Turn {
+        private final Move move;
+        private final long duration;
+
+        private Turn(Move move, long duration) {
+            this.move = move;
+            this.duration = duration;
+        }
+    }
+
+    private final Easing easing;
+    private final Queue<Turn> turns;
+
+    // the state after every completed turn and the buffer frames are drawn into;
+    // the two are swapped when a turn completes
+    private PackedMesh state;
+    private PackedMesh buffer;
+
+    private Turn turn;
+    private TurnAnimation animation;
+    private long elapsed;
+
+    public TurnTimeline(Mesh mesh, Easing easing) {
+        this.easing = easing;
+        this.turns = new ArrayDeque<Turn>();
+        this.state = PackedMesh.fromMesh(mesh);
+        this.buffer = new PackedMesh();
+    }
+
+    public void enqueue(Move move, long durationNanos) {
+        this.turns.add(new Turn(move, Math.max(0L, durationNanos)));
+    }
+
+    public int getPendingTurns() {
+        return this.turns.size() + (this.turn == null ? 0 : 1);
+    }
+
+    public boolean isIdle() {
+        return this.turn == null && this.turns.isEmpty();
+    }
+
+    // the state with every completed turn applied; the current turn is not included
+    public PackedMesh getState() {
+        return this.state;
+    }
+
+    // advances the timeline and returns the frame to draw, which stays
+    // valid until the next call
+    public PackedMesh advance(long elapsedNanos) {
+        this.elapsed += elapsedNanos;
+
+        while (true) {
+            if (this.turn == null) {
+                this.turn = this.turns.poll();
+                if (this.turn == null) {
+                    this.elapsed = 0L;
+                    return this.state;
+                }
+
+                this.animation = new TurnAnimation(this.state, this.turn.move, this.easing, this.buffer);
+            }
+
+            if (this.elapsed < this.turn.duration) {
+                return this.animation.frame((double) this.elapsed / this.turn.duration);
+            }
+
+            // commit the completed turn at its exact final angle
+            this.elapsed -= this.turn.duration;
+            PackedMesh completed = this.animation.frame(1.0D);
+            this.buffer = this.state;
+            this.state = completed;
+            this.turn = null;
+            this.animation = null;
+        }
+    }
+
+    public void skip() {
+        advance(Long.MAX_VALUE / 2);
+    }
+}
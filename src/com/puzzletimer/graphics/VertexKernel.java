@@ -0,0 +1,100 @@
+package com.puzzletimer.graphics;
+
+public abstract class VertexKernel {
+    private static final String VECTOR_KERNEL = "com.puzzletimer.graphics.vector.VectorVertexKernel";
+    private static final VertexKernel SCALAR = new ScalarVertexKernel();
+    private static final VertexKernel VECTOR = load();
+
+    // the vector kernel is opt-in: on JDK 17 it measures slower than the
+    // scalar kernel (see KernelBenchmark)
+    private static final VertexKernel DEFAULT =
+            Boolean.getBoolean("com.puzzletimer.graphics.vector") && VECTOR != null ? VECTOR : SCALAR;
+
+    public static VertexKernel getDefault() {
+        return DEFAULT;
+    }
+
+    public static VertexKernel scalar() {
+        return SCALAR;
+    }
+
+    // null when the vector kernel is unavailable
+    public static VertexKernel vector() {
+        return VECTOR;
+    }
+
+    private static VertexKernel load() {
+        // any failure means jdk.incubator.vector or the vector kernel jar is unavailable
+        try {
+            return (VertexKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public abstract String getName();
+
+    public abstract void transform(double[] matrix, double[] source, int sourceOffset, double[] destination, int destinationOffset, int count);
+
+    public abstract void project(double[] coordinates, int offset, int count, double centerX, double centerY, Vector3 viewerPosition, double[] screenX, double[] screenY);
+
+    private static class ScalarVertexKernel extends VertexKernel {
+        public String getName() {
+            return "scalar";
+        }
+
+        public void transform(double[] matrix, double[] source, int sourceOffset, double[] destination, int destinationOffset, int count) {
+            transformScalar(matrix, source, sourceOffset, destination, destinationOffset, count);
+        }
+
+        public void project(double[] coordinates, int offset, int count, double centerX, double centerY, Vector3 viewerPosition, double[] screenX, double[] screenY) {
+            projectScalar(coordinates, offset, count, centerX, centerY, viewerPosition, screenX, screenY);
+        }
+    }
+
+    protected static void transformScalar(double[] matrix, double[] source, int sourceOffset, double[] destination, int destinationOffset, int count) {
+        double m00 = matrix[0];
+        double m01 = matrix[1];
+        double m02 = matrix[2];
+        double m03 = matrix[3];
+        double m10 = matrix[4];
+        double m11 = matrix[5];
+        double m12 = matrix[6];
+        double m13 = matrix[7];
+        double m20 = matrix[8];
+        double m21 = matrix[9];
+        double m22 = matrix[10];
+        double m23 = matrix[11];
+
+        int s = 3 * sourceOffset;
+        int d = 3 * destinationOffset;
+        for (int i = 0; i < count; i++, s += 3, d += 3) {
+            double x = source[s];
+            double y = source[s + 1];
+            double z = source[s + 2];
+
+            destination[d] = m00 * x + m01 * y + m02 * z + m03;
+            destination[d + 1] = m10 * x + m11 * y + m12 * z + m13;
+            destination[d + 2] = m20 * x + m21 * y + m22 * z + m23;
+        }
+    }
+
+    protected static void projectScalar(double[] coordinates, int offset, int count, double centerX, double centerY, Vector3 viewerPosition, double[] screenX, double[] screenY) {
+        double vx = viewerPosition.x;
+        double vy = viewerPosition.y;
+        double vz = viewerPosition.z;
+
+        for (int i = offset; i < offset + count; i++) {
+            double x = coordinates[3 * i];
+            double y = coordinates[3 * i + 1];
+            double z = coordinates[3 * i + 2];
+
+            screenX[i] = centerX + (-x - vx) * (vz / z);
+            screenY[i] = centerY + (y - vy) * (vz / z);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+
+public class View {
+    public final Vector3 lightDirection;
+    public final LightModel lightModel;
+    public final Vector3 viewerPosition;
+    public final Vector3 cameraPosition;
+    public final Vector3 cameraRotation;
+    public final int width;
+    public final int height;
+    public final Color background;
+
+    public View() {
+        this(
+                new Vector3(0.0D, 0.25D, -1.0D).unit(),
+                new Vector3(0.0D, 0.0D, -325.0D),
+                new Vector3(0.0D, 0.0D, -2.8D),
+                new Vector3(0.0D, 0.0D, 0.0D),
+                0,
+                0,
+                Color.WHITE);
+    }
+
+    public View(Vector3 lightDirection, Vector3 viewerPosition, Vector3 cameraPosition, Vector3 cameraRotation, int width, int height, Color background) {
+        this(lightDirection, LightModel.VIEW, viewerPosition, cameraPosition, cameraRotation, width, height, background);
+    }
+
+    public View(Vector3 lightDirection, LightModel lightModel, Vector3 viewerPosition, Vector3 cameraPosition, Vector3 cameraRotation, int width, int height, Color background) {
+        this.lightDirection = lightDirection;
+        this.lightModel = lightModel;
+        this.viewerPosition = viewerPosition;
+        this.cameraPosition = cameraPosition;
+        this.cameraRotation = cameraRotation;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+    }
+
+    public View setLightDirection(Vector3 lightDirection) {
+        return new View(lightDirection, this.lightModel, this.viewerPosition, this.cameraPosition, this.cameraRotation, this.width, this.height, this.background);
+    }
+
+    public View setLightModel(LightModel lightModel) {
+        return new View(this.lightDirection, lightModel, this.viewerPosition, this.cameraPosition, this.cameraRotation, this.width, this.height, this.background);
+    }
+
+    public View setViewerPosition(Vector3 viewerPosition) {
+        return new View(this.lightDirection, this.lightModel, viewerPosition, this.cameraPosition, this.cameraRotation, this.width, this.height, this.background);
+    }
+
+    public View setCameraPosition(Vector3 cameraPosition) {
+        return new View(this.lightDirection, this.lightModel, this.viewerPosition, cameraPosition, this.cameraRotation, this.width, this.height, this.background);
+    }
+
+    public View setCameraRotation(Vector3 cameraRotation) {
+        return new View(this.lightDirection, this.lightModel, this.viewerPosition, this.cameraPosition, cameraRotation, this.width, this.height, this.background);
+    }
+
+    public View setSize(int width, int height) {
+        return new View(this.lightDirection, this.lightModel, this.viewerPosition, this.cameraPosition, this.cameraRotation, width, height, this.background);
+    }
+
+    public View setBackground(Color background) {
+        return new View(this.lightDirection, this.lightModel, this.viewerPosition, this.cameraPosition, this.cameraRotation, this.width, this.height, background);
+    }
+
+    public MutableMatrix44 cameraMatrix(MutableMatrix44 result) {
+        MutableMatrix44 translation = new MutableMatrix44().setTranslation(
+                -this.cameraPosition.x,
+                -this.cameraPosition.y,
+                -this.cameraPosition.z);
+
+        return result.setRotationXYZ(
+                -this.cameraRotation.x,
+                -this.cameraRotation.y,
+                -this.cameraRotation.z).mul(translation);
+    }
+
+    public Color backfacingColor() {
+        return new Color(
+                (4 * this.background.getRed() + 32) / 5,
+                (4 * this.background.getGreen() + 32) / 5,
+                (4 * this.background.getBlue() + 32) / 5);
+    }
+}
@@ -0,0 +1,90 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BspTreeTest {
+    private static final Vector3[] EYES = {
+            new Vector3(0.0D, 0.0D, -5.0D),
+            new Vector3(0.9D, 0.6D, -3.0D),
+            new Vector3(-2.0D, 0.4D, 1.5D),
+            new Vector3(0.3D, -4.0D, 0.2D),
+            new Vector3(2.5D, 2.5D, 2.5D)
+    };
+
+    @Test
+    public void orderIsAPermutation() {
+        BspTree tree = new BspTree(TestMeshes.irregular());
+        for (Vector3 eye : EYES) {
+            int[] order = tree.order(eye);
+            boolean[] seen = new boolean[tree.mesh.faces.length];
+            for (int face : order) {
+                assertTrue(!seen[face]);
+                seen[face] = true;
+            }
+            assertEquals(tree.mesh.faces.length, order.length);
+        }
+    }
+
+    // painting in order must leave the nearest face along every ray on top
+    @Test
+    public void orderIsBackToFront() {
+        BspTree tree = new BspTree(TestMeshes.irregular());
+        Face[] faces = tree.mesh.faces;
+        Random random = new Random(7L);
+
+        for (Vector3 eye : EYES) {
+            int[] order = tree.order(eye);
+            int[] rank = new int[faces.length];
+            for (int i = 0; i < order.length; i++) {
+                rank[order[i]] = i;
+            }
+
+            int checked = 0;
+            for (int ray = 0; ray < 2000; ray++) {
+                Vector3 target = new Vector3(
+                        random.nextDouble() - 0.5D,
+                        random.nextDouble() - 0.5D,
+                        random.nextDouble() - 0.5D);
+                Vector3 direction = target.sub(eye);
+
+                int nearest = -1;
+                double nearestT = Double.POSITIVE_INFINITY;
+                double secondT = Double.POSITIVE_INFINITY;
+                int last = -1;
+                for (int i = 0; i < faces.length; i++) {
+                    double t = TestMeshes.intersect(faces[i], eye, direction);
+                    if (t == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+
+                    if (t < nearestT) {
+                        secondT = nearestT;
+                        nearestT = t;
+                        nearest = i;
+                    } else if (t < secondT) {
+                        secondT = t;
+                    }
+
+                    if (last < 0 || rank[i] > rank[last]) {
+                        last = i;
+                    }
+                }
+
+                // rays through a shared edge hit two faces at the same point
+                if (nearest < 0 || secondT - nearestT < 1e-6D) {
+                    continue;
+                }
+
+                assertEquals("face drawn last along ray " + ray, nearest, last);
+                checked++;
+            }
+
+            assertTrue(checked > 100);
+        }
+    }
+}
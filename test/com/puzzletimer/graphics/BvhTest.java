@@ -0,0 +1,76 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class BvhTest {
+    private static void assertMatchesScan(Mesh mesh, Bvh bvh, Vector3 origin, Vector3 direction) {
+        int nearest = -1;
+        double nearestT = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < mesh.faces.length; i++) {
+            double t = TestMeshes.intersect(mesh.faces[i], origin, direction);
+            if (t < nearestT) {
+                nearestT = t;
+                nearest = i;
+            }
+        }
+
+        PickResult result = bvh.intersect(origin, direction);
+        if (nearest < 0) {
+            assertNull(result);
+            return;
+        }
+
+        assertNotNull(result);
+        assertEquals(nearestT, result.distance, 1e-9D);
+        if (result.faceIndex != nearest) {
+            // only a tie at a shared edge may pick another face
+            assertEquals(nearestT, TestMeshes.intersect(mesh.faces[result.faceIndex], origin, direction), 1e-9D);
+        }
+    }
+
+    @Test
+    public void matchesBruteForceScan() {
+        Mesh mesh = TestMeshes.irregular();
+        Bvh bvh = new Bvh(mesh);
+        Random random = new Random(11L);
+
+        for (int i = 0; i < 5000; i++) {
+            Vector3 origin = new Vector3(
+                    4.0D * random.nextDouble() - 2.0D,
+                    4.0D * random.nextDouble() - 2.0D,
+                    4.0D * random.nextDouble() - 2.0D);
+            Vector3 target = new Vector3(
+                    random.nextDouble() - 0.5D,
+                    random.nextDouble() - 0.5D,
+                    random.nextDouble() - 0.5D);
+
+            assertMatchesScan(mesh, bvh, origin, target.sub(origin));
+        }
+    }
+
+    @Test
+    public void hitsEveryFaceAimedAt() {
+        Mesh mesh = TestMeshes.irregular();
+        Bvh bvh = new Bvh(mesh);
+        Vector3 origin = new Vector3(0.0D, 0.0D, -5.0D);
+
+        for (Face face : mesh.faces) {
+            assertMatchesScan(mesh, bvh, origin, face.centroid().sub(origin));
+        }
+    }
+
+    @Test
+    public void missesRaysPointingAway() {
+        Mesh mesh = TestMeshes.irregular();
+        Bvh bvh = new Bvh(mesh);
+
+        assertNull(bvh.intersect(new Vector3(0.0D, 0.0D, -5.0D), new Vector3(0.0D, 0.0D, -1.0D)));
+        assertNull(bvh.intersect(new Vector3(0.0D, 3.0D, 0.0D), new Vector3(1.0D, 0.0D, 0.0D)));
+    }
+}
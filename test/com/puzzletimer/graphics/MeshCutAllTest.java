@@ -0,0 +1,75 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.Assert.assertEquals;
+
+public class MeshCutAllTest {
+    // cutAll may emit faces in another order than chained cuts
+    private static Face[] sorted(Mesh mesh) {
+        Face[] faces = mesh.faces.clone();
+        Arrays.sort(faces, new Comparator<Face>() {
+            public int compare(Face a, Face b) {
+                Vector3 p = a.centroid();
+                Vector3 q = b.centroid();
+                int c = Double.compare(Math.rint(p.x * 1e6D), Math.rint(q.x * 1e6D));
+                if (c == 0) {
+                    c = Double.compare(Math.rint(p.y * 1e6D), Math.rint(q.y * 1e6D));
+                }
+                if (c == 0) {
+                    c = Double.compare(Math.rint(p.z * 1e6D), Math.rint(q.z * 1e6D));
+                }
+
+                return c;
+            }
+        });
+
+        return faces;
+    }
+
+    private static void assertSameFaces(Mesh expected, Mesh actual) {
+        Face[] e = sorted(expected);
+        Face[] a = sorted(actual);
+        assertEquals("face count", e.length, a.length);
+        for (int i = 0; i < e.length; i++) {
+            assertEquals(e[i].color.getRGB(), a[i].color.getRGB());
+            assertEquals(e[i].vertices.length, a[i].vertices.length);
+            assertEquals(0.0D, e[i].centroid().sub(a[i].centroid()).norm(), 1e-9D);
+        }
+    }
+
+    @Test
+    public void matchesChainedCuts() {
+        Mesh dodecahedron = Mesh.dodecahedron(TestMeshes.colors(12));
+        for (double width : new double[]{0.0D, 0.02D}) {
+            Plane[] planes = TestMeshes.facePlanes(0.35D);
+
+            Mesh expected = dodecahedron;
+            for (Plane plane : planes) {
+                expected = expected.cut(plane, width);
+            }
+
+            assertSameFaces(expected, dodecahedron.cutAll(planes, width));
+        }
+    }
+
+    @Test
+    public void matchesChainedCutsThatMiss() {
+        Mesh cube = Mesh.cube(TestMeshes.colors(6));
+        Plane[] planes = {
+                new Plane(new Vector3(0.0D, 0.0D, 0.2D), new Vector3(0.0D, 0.0D, 1.0D)),
+                new Plane(new Vector3(0.0D, 5.0D, 0.0D), new Vector3(0.0D, 1.0D, 0.0D)),
+                new Plane(new Vector3(0.1D, 0.0D, 0.0D), new Vector3(1.0D, 1.0D, 0.0D).unit())
+        };
+
+        Mesh expected = cube;
+        for (Plane plane : planes) {
+            expected = expected.cut(plane, 0.05D);
+        }
+
+        assertSameFaces(expected, cube.cutAll(planes, 0.05D));
+    }
+}
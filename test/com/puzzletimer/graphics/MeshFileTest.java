@@ -0,0 +1,88 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MeshFileTest {
+    private static byte[] write(Mesh mesh) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MeshFile.write(mesh, output);
+
+        return output.toByteArray();
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            MeshFile.map(ByteBuffer.wrap(bytes));
+            fail("expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void roundTrips() throws IOException {
+        Mesh mesh = TestMeshes.irregular();
+        MappedMesh mapped = MeshFile.map(ByteBuffer.wrap(write(mesh)));
+
+        assertEquals(mesh.faces.length, mapped.getFaceCount());
+        TestMeshes.assertSameMesh(mesh, mapped.toMesh(), 0.0D);
+        TestMeshes.assertSameMesh(mesh, mapped.toPackedMesh().toMesh(), 0.0D);
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        byte[] bytes = write(TestMeshes.irregular());
+
+        assertRejected(Arrays.copyOf(bytes, MeshFile.HEADER_SIZE - 1));
+        assertRejected(Arrays.copyOf(bytes, MeshFile.HEADER_SIZE));
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test
+    public void rejectsBadHeaders() throws IOException {
+        byte[] bytes = write(TestMeshes.irregular());
+
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        assertRejected(magic);
+
+        byte[] version = bytes.clone();
+        ByteBuffer.wrap(version).order(ByteOrder.LITTLE_ENDIAN).putInt(4, MeshFile.VERSION + 1);
+        assertRejected(version);
+
+        byte[] faceCount = bytes.clone();
+        ByteBuffer.wrap(faceCount).order(ByteOrder.LITTLE_ENDIAN).putInt(8, -1);
+        assertRejected(faceCount);
+    }
+
+    @Test
+    public void rejectsFacesOutOfBounds() throws IOException {
+        byte[] bytes = write(TestMeshes.irregular());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int faceCount = buffer.getInt(8);
+        int vertexCount = buffer.getInt(12);
+        int offsets = MeshFile.HEADER_SIZE + 24 * vertexCount;
+        int lengths = offsets + 4 * faceCount;
+
+        byte[] offset = bytes.clone();
+        ByteBuffer.wrap(offset).order(ByteOrder.LITTLE_ENDIAN).putInt(offsets + 4 * (faceCount - 1), vertexCount);
+        assertRejected(offset);
+
+        byte[] negative = bytes.clone();
+        ByteBuffer.wrap(negative).order(ByteOrder.LITTLE_ENDIAN).putInt(offsets, -1);
+        assertRejected(negative);
+
+        byte[] length = bytes.clone();
+        ByteBuffer.wrap(length).order(ByteOrder.LITTLE_ENDIAN).putInt(lengths, vertexCount + 1);
+        assertRejected(length);
+    }
+}
@@ -0,0 +1,46 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MoveCompilerTest {
+    private static List<Move> scramble() {
+        Plane[] planes = TestMeshes.facePlanes(0.35D);
+
+        List<Move> moves = new ArrayList<Move>();
+        for (int i = 0; i < 30; i++) {
+            moves.add(new Move(planes[(7 * i) % planes.length], (i % 4 + 1) * 2.0D * Math.PI / 5.0D));
+        }
+
+        return moves;
+    }
+
+    @Test
+    public void matchesChainedRotateHalfspace() {
+        Mesh mesh = TestMeshes.megaminx();
+        List<Move> moves = scramble();
+
+        Mesh expected = mesh;
+        for (Move move : moves) {
+            expected = expected.rotateHalfspace(move.plane, move.angle);
+        }
+
+        TestMeshes.assertSameMesh(expected, MoveCompiler.apply(mesh, moves), 1e-9D);
+    }
+
+    @Test
+    public void resetRestoresTheMesh() {
+        Mesh mesh = TestMeshes.megaminx();
+        MoveCompiler compiler = new MoveCompiler(mesh).apply(scramble());
+
+        TestMeshes.assertSameMesh(mesh, compiler.reset().getMesh(), 0.0D);
+
+        Move move = scramble().get(0);
+        TestMeshes.assertSameMesh(
+                mesh.rotateHalfspace(move.plane, move.angle),
+                compiler.apply(move).getMesh(),
+                1e-12D);
+    }
+}
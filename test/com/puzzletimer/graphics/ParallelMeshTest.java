@@ -0,0 +1,40 @@
+package com.puzzletimer.graphics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMeshTest {
+    private ForkJoinPool pool;
+    private ParallelMesh parallel;
+
+    @Before
+    public void setUp() {
+        // a threshold of one splits even small meshes across the pool
+        this.pool = new ForkJoinPool(4);
+        this.parallel = new ParallelMesh(this.pool, 1);
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void matchesSequentialOperations() {
+        Mesh mesh = TestMeshes.megaminx();
+        Plane plane = new Plane(new Vector3(0.1D, 0.2D, 0.0D), new Vector3(1.0D, 2.0D, 0.5D).unit());
+        Matrix44 matrix = Matrix44.rotationXYZ(0.3D, -0.2D, 0.9D);
+
+        for (int run = 0; run < 3; run++) {
+            TestMeshes.assertSameMesh(mesh.transform(matrix), this.parallel.transform(mesh, matrix), 0.0D);
+            TestMeshes.assertSameMesh(mesh.rotateHalfspace(plane, 0.7D), this.parallel.rotateHalfspace(mesh, plane, 0.7D), 0.0D);
+            TestMeshes.assertSameMesh(mesh.shortenFaces(0.01D), this.parallel.shortenFaces(mesh, 0.01D), 0.0D);
+            TestMeshes.assertSameMesh(mesh.softenFaces(0.01D), this.parallel.softenFaces(mesh, 0.01D), 0.0D);
+            TestMeshes.assertSameMesh(mesh.clip(plane), this.parallel.clip(mesh, plane), 0.0D);
+            TestMeshes.assertSameMesh(mesh.cut(plane, 0.03D), this.parallel.cut(mesh, plane, 0.03D), 0.0D);
+        }
+    }
+}
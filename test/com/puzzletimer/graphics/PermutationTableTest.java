@@ -0,0 +1,66 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PermutationTableTest {
+    private static final int[] SEQUENCE = {0, 3, 3, 7, 11, 2, 5, 0, 9, 1, 4, 6, 8, 10, 7};
+
+    private static PermutationTable table(Mesh mesh) {
+        Plane[] planes = TestMeshes.facePlanes(0.35D);
+
+        Move[] moves = new Move[planes.length];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = new Move(planes[i], 2.0D * Math.PI / 5.0D);
+        }
+
+        return new PermutationTable(mesh, moves);
+    }
+
+    @Test
+    public void composeMatchesSequentialPermute() {
+        PermutationTable table = table(TestMeshes.megaminx());
+
+        int[] colors = table.solvedColors();
+        int[] result = new int[colors.length];
+        for (int move : SEQUENCE) {
+            PermutationTable.permute(colors, table.permutation(move), result);
+            int[] swap = colors;
+            colors = result;
+            result = swap;
+        }
+
+        int[] composed = new int[colors.length];
+        PermutationTable.permute(table.solvedColors(), table.compose(SEQUENCE), composed);
+
+        assertArrayEquals(colors, composed);
+        assertArrayEquals(colors, table.apply(table.solvedColors(), SEQUENCE));
+    }
+
+    @Test
+    public void matchesTheTurnedMesh() {
+        Mesh mesh = TestMeshes.megaminx();
+        PermutationTable table = table(mesh);
+
+        Mesh turned = mesh;
+        for (int move : SEQUENCE) {
+            turned = turned.rotateHalfspace(table.moves[move].plane, table.moves[move].angle);
+        }
+
+        // the face now at each original position has the color the table predicts
+        int[] colors = table.apply(table.solvedColors(), SEQUENCE);
+        for (Face face : turned.faces) {
+            Vector3 centroid = face.centroid();
+            int position = -1;
+            for (int i = 0; i < mesh.faces.length; i++) {
+                if (mesh.faces[i].centroid().sub(centroid).norm() < 1e-6D) {
+                    position = i;
+                }
+            }
+
+            assertEquals(face.color.getRGB(), colors[position]);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.puzzletimer.graphics;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PuzzleGeometryTest {
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Test
+    public void rendersLikeTheRecoloredMesh() {
+        Mesh mesh = TestMeshes.irregular();
+        PuzzleGeometry geometry = new PuzzleGeometry(mesh);
+        Palette palette = Palette.fromMesh(mesh);
+        PuzzleState state = geometry.state(mesh, palette);
+        for (int i = 0; i < state.size(); i += 3) {
+            state = state.set(i, (state.get(i) + 1) % palette.size());
+        }
+
+        Face[] faces = new Face[mesh.faces.length];
+        for (int i = 0; i < faces.length; i++) {
+            faces[i] = mesh.faces[i].setColor(palette.getColor(state.get(i)));
+        }
+        Mesh recolored = new Mesh(faces);
+
+        View view = new View()
+                .setSize(160, 120)
+                .setBackground(new Color(200, 210, 220))
+                .setCameraRotation(new Vector3(0.2D, 0.1D, -0.3D));
+        for (RenderMode mode : RenderMode.values()) {
+            Renderer renderer = new Renderer(mode);
+            assertArrayEquals(
+                    mode.name(),
+                    pixels(renderer.render(recolored, view)),
+                    pixels(renderer.render(geometry, palette, state, view)));
+        }
+
+        TestMeshes.assertSameMesh(recolored, geometry.toMesh(palette, state), 0.0D);
+    }
+
+    @Test
+    public void stateRoundTripsThroughTheMesh() {
+        Mesh mesh = TestMeshes.irregular();
+        PuzzleGeometry geometry = new PuzzleGeometry(mesh);
+        Palette palette = Palette.fromMesh(mesh);
+        PuzzleState state = geometry.state(mesh, palette);
+
+        assertEquals(state, geometry.state(geometry.toMesh(palette, state), palette));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsStatesOfAnotherSize() {
+        Mesh mesh = TestMeshes.irregular();
+        Palette palette = Palette.fromMesh(mesh);
+
+        new PuzzleGeometry(mesh).toMesh(palette, new PuzzleState(new byte[3]));
+    }
+}
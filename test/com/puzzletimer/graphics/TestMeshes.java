@@ -0,0 +1,102 @@
+package com.puzzletimer.graphics;
+
+import java.awt.Color;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+final class TestMeshes {
+    private TestMeshes() {
+    }
+
+    static Color[] colors(int count) {
+        Color[] colors = new Color[count];
+        for (int i = 0; i < count; i++) {
+            colors[i] = new Color(20 * i, 255 - 20 * i, (60 * i) % 256);
+        }
+
+        return colors;
+    }
+
+    // the plane of every face of a dodecahedron, moved in to the given depth
+    static Plane[] facePlanes(double depth) {
+        Mesh dodecahedron = Mesh.dodecahedron(colors(12));
+
+        Plane[] planes = new Plane[dodecahedron.faces.length];
+        for (int i = 0; i < planes.length; i++) {
+            Face face = dodecahedron.faces[i];
+            Vector3 n = new Plane(face.vertices[0], face.vertices[1], face.vertices[2]).n;
+            planes[i] = new Plane(n.mul(depth), n);
+        }
+
+        return planes;
+    }
+
+    // a dodecahedron cut into a megaminx-like puzzle
+    static Mesh megaminx() {
+        return Mesh.dodecahedron(colors(12)).cutAll(facePlanes(0.35D), 0.02D);
+    }
+
+    // an irregular mesh: a few cuts, soft corners and a turned layer
+    static Mesh irregular() {
+        Mesh mesh = Mesh.dodecahedron(colors(12));
+        Plane[] planes = facePlanes(0.35D);
+        for (int i = 0; i < 6; i++) {
+            mesh = mesh.cut(planes[i], 0.02D);
+        }
+
+        return mesh
+                .softenFaces(0.01D)
+                .rotateHalfspace(new Plane(new Vector3(0.0D, 0.2D, 0.0D), new Vector3(0.0D, 1.0D, 0.0D)), 0.6D)
+                .transform(Matrix44.rotationX(0.5D).mul(Matrix44.rotationY(0.3D)));
+    }
+
+    static void assertSameMesh(Mesh expected, Mesh actual, double tolerance) {
+        assertEquals("face count", expected.faces.length, actual.faces.length);
+        for (int i = 0; i < expected.faces.length; i++) {
+            Face e = expected.faces[i];
+            Face a = actual.faces[i];
+            assertEquals("color of face " + i, e.color.getRGB(), a.color.getRGB());
+            assertEquals("vertex count of face " + i, e.vertices.length, a.vertices.length);
+            for (int j = 0; j < e.vertices.length; j++) {
+                assertArrayEquals(
+                        "vertex " + j + " of face " + i,
+                        new double[]{e.vertices[j].x, e.vertices[j].y, e.vertices[j].z},
+                        new double[]{a.vertices[j].x, a.vertices[j].y, a.vertices[j].z},
+                        tolerance);
+            }
+        }
+    }
+
+    // ray parameter where origin + t * direction hits a convex face, or
+    // infinity on a miss; a plain per-face reference for the acceleration
+    // structures
+    static double intersect(Face face, Vector3 origin, Vector3 direction) {
+        Vector3[] v = face.vertices;
+        Vector3 n = new Vector3(0.0D, 0.0D, 0.0D);
+        for (int i = 0; i < v.length; i++) {
+            n = n.add(v[i].cross(v[(i + 1) % v.length]));
+        }
+
+        double denominator = n.dot(direction);
+        if (denominator == 0.0D) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double t = n.dot(v[0].sub(origin)) / denominator;
+        if (t <= 0.0D) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        Vector3 point = origin.add(direction.mul(t));
+        for (int i = 0; i < v.length; i++) {
+            Vector3 a = v[i];
+            Vector3 b = v[(i + 1) % v.length];
+            if (b.sub(a).cross(point.sub(a)).dot(n) < 0.0D) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+
+        return t;
+    }
+}
@@ -0,0 +1,134 @@
+package com.puzzletimer.graphics.vector;
+
+import com.puzzletimer.graphics.Vector3;
+import com.puzzletimer.graphics.VertexKernel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// A block of LANES packed x, y, z triples is read as three contiguous vectors
+// and split into x, y and z vectors with shuffles, and written back the same
+// way. Index mapped gathers and scatters would be simpler, but C2 on JDK 17
+// crashes on loops of them.
+public class VectorVertexKernel extends VertexKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // lanes of x, y and z taken from each of the three packed vectors
+    private static final VectorShuffle<Double> X0 = split(0, 0), X1 = split(0, 1), X2 = split(0, 2);
+    private static final VectorShuffle<Double> Y0 = split(1, 0), Y1 = split(1, 1), Y2 = split(1, 2);
+    private static final VectorShuffle<Double> Z0 = split(2, 0), Z1 = split(2, 1), Z2 = split(2, 2);
+    private static final VectorMask<Double> X1_MASK = splitMask(0, 1), X2_MASK = splitMask(0, 2);
+    private static final VectorMask<Double> Y1_MASK = splitMask(1, 1), Y2_MASK = splitMask(1, 2);
+    private static final VectorMask<Double> Z1_MASK = splitMask(2, 1), Z2_MASK = splitMask(2, 2);
+
+    // lanes of each packed vector taken from x, y and z
+    private static final VectorShuffle<Double> P0X = join(0, 0), P0Y = join(0, 1), P0Z = join(0, 2);
+    private static final VectorShuffle<Double> P1X = join(1, 0), P1Y = join(1, 1), P1Z = join(1, 2);
+    private static final VectorShuffle<Double> P2X = join(2, 0), P2Y = join(2, 1), P2Z = join(2, 2);
+    private static final VectorMask<Double> P0Y_MASK = joinMask(0, 1), P0Z_MASK = joinMask(0, 2);
+    private static final VectorMask<Double> P1Y_MASK = joinMask(1, 1), P1Z_MASK = joinMask(1, 2);
+    private static final VectorMask<Double> P2Y_MASK = joinMask(2, 1), P2Z_MASK = joinMask(2, 2);
+
+    public VectorVertexKernel() {
+        if (LANES < 2) {
+            throw new UnsupportedOperationException("no usable vector shape");
+        }
+    }
+
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    public void transform(double[] matrix, double[] source, int sourceOffset, double[] destination, int destinationOffset, int count) {
+        int blocked = count - count % LANES;
+
+        int s = 3 * sourceOffset;
+        int d = 3 * destinationOffset;
+        for (int i = 0; i < blocked; i += LANES, s += 3 * LANES, d += 3 * LANES) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, source, s);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, source, s + LANES);
+            DoubleVector c = DoubleVector.fromArray(SPECIES, source, s + 2 * LANES);
+            DoubleVector x = a.rearrange(X0).blend(b.rearrange(X1), X1_MASK).blend(c.rearrange(X2), X2_MASK);
+            DoubleVector y = a.rearrange(Y0).blend(b.rearrange(Y1), Y1_MASK).blend(c.rearrange(Y2), Y2_MASK);
+            DoubleVector z = a.rearrange(Z0).blend(b.rearrange(Z1), Z1_MASK).blend(c.rearrange(Z2), Z2_MASK);
+
+            // same operation order as the scalar kernel, so results are bit-identical
+            DoubleVector tx = x.mul(matrix[0]).add(y.mul(matrix[1])).add(z.mul(matrix[2])).add(matrix[3]);
+            DoubleVector ty = x.mul(matrix[4]).add(y.mul(matrix[5])).add(z.mul(matrix[6])).add(matrix[7]);
+            DoubleVector tz = x.mul(matrix[8]).add(y.mul(matrix[9])).add(z.mul(matrix[10])).add(matrix[11]);
+
+            tx.rearrange(P0X).blend(ty.rearrange(P0Y), P0Y_MASK).blend(tz.rearrange(P0Z), P0Z_MASK).intoArray(destination, d);
+            tx.rearrange(P1X).blend(ty.rearrange(P1Y), P1Y_MASK).blend(tz.rearrange(P1Z), P1Z_MASK).intoArray(destination, d + LANES);
+            tx.rearrange(P2X).blend(ty.rearrange(P2Y), P2Y_MASK).blend(tz.rearrange(P2Z), P2Z_MASK).intoArray(destination, d + 2 * LANES);
+        }
+
+        transformScalar(matrix, source, sourceOffset + blocked, destination, destinationOffset + blocked, count - blocked);
+    }
+
+    public void project(double[] coordinates, int offset, int count, double centerX, double centerY, Vector3 viewerPosition, double[] screenX, double[] screenY) {
+        double vx = viewerPosition.x;
+        double vy = viewerPosition.y;
+        double vz = viewerPosition.z;
+
+        int blocked = count - count % LANES;
+
+        int c = 3 * offset;
+        for (int i = offset; i < offset + blocked; i += LANES, c += 3 * LANES) {
+            DoubleVector p0 = DoubleVector.fromArray(SPECIES, coordinates, c);
+            DoubleVector p1 = DoubleVector.fromArray(SPECIES, coordinates, c + LANES);
+            DoubleVector p2 = DoubleVector.fromArray(SPECIES, coordinates, c + 2 * LANES);
+            DoubleVector x = p0.rearrange(X0).blend(p1.rearrange(X1), X1_MASK).blend(p2.rearrange(X2), X2_MASK);
+            DoubleVector y = p0.rearrange(Y0).blend(p1.rearrange(Y1), Y1_MASK).blend(p2.rearrange(Y2), Y2_MASK);
+            DoubleVector z = p0.rearrange(Z0).blend(p1.rearrange(Z1), Z1_MASK).blend(p2.rearrange(Z2), Z2_MASK);
+
+            DoubleVector scale = DoubleVector.broadcast(SPECIES, vz).div(z);
+            x.neg().sub(vx).mul(scale).add(centerX).intoArray(screenX, i);
+            y.sub(vy).mul(scale).add(centerY).intoArray(screenY, i);
+        }
+
+        projectScalar(coordinates, offset + blocked, count - blocked, centerX, centerY, viewerPosition, screenX, screenY);
+    }
+
+    // coordinate k of vertex i is element 3 * i + k of the block, which is
+    // lane (3 * i + k) % LANES of packed vector (3 * i + k) / LANES
+    private static VectorShuffle<Double> split(int coordinate, int part) {
+        int[] lanes = new int[LANES];
+        for (int i = 0; i < LANES; i++) {
+            int element = 3 * i + coordinate;
+            lanes[i] = element / LANES == part ? element % LANES : 0;
+        }
+
+        return VectorShuffle.fromArray(SPECIES, lanes, 0);
+    }
+
+    private static VectorMask<Double> splitMask(int coordinate, int part) {
+        boolean[] lanes = new boolean[LANES];
+        for (int i = 0; i < LANES; i++) {
+            lanes[i] = (3 * i + coordinate) / LANES == part;
+        }
+
+        return VectorMask.fromArray(SPECIES, lanes, 0);
+    }
+
+    private static VectorShuffle<Double> join(int part, int coordinate) {
+        int[] lanes = new int[LANES];
+        for (int i = 0; i < LANES; i++) {
+            int element = part * LANES + i;
+            lanes[i] = element % 3 == coordinate ? element / 3 : 0;
+        }
+
+        return VectorShuffle.fromArray(SPECIES, lanes, 0);
+    }
+
+    private static VectorMask<Double> joinMask(int part, int coordinate) {
+        boolean[] lanes = new boolean[LANES];
+        for (int i = 0; i < LANES; i++) {
+            lanes[i] = (part * LANES + i) % 3 == coordinate;
+        }
+
+        return VectorMask.fromArray(SPECIES, lanes, 0);
+    }
+}
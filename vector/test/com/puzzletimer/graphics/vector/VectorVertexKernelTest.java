@@ -0,0 +1,104 @@
+package com.puzzletimer.graphics.vector;
+
+import com.puzzletimer.graphics.Matrix44;
+import com.puzzletimer.graphics.MutableMatrix44;
+import com.puzzletimer.graphics.Vector3;
+import com.puzzletimer.graphics.VertexKernel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assume.assumeNoException;
+
+public class VectorVertexKernelTest {
+    // enough vertices for several blocks plus every tail length, at odd offsets
+    private static final int[] COUNTS = {0, 1, 2, 3, 5, 7, 8, 9, 15, 16, 17, 31, 33, 100, 257};
+    private static final int[] OFFSETS = {0, 1, 3};
+
+    private VertexKernel vector;
+    private VertexKernel scalar;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        try {
+            this.vector = new VectorVertexKernel();
+        } catch (UnsupportedOperationException e) {
+            assumeNoException(e);
+        }
+
+        this.scalar = VertexKernel.scalar();
+        this.random = new Random(3L);
+    }
+
+    private double[] coordinates(int count) {
+        double[] coordinates = new double[3 * count];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = 4.0D * this.random.nextDouble() - 2.0D;
+        }
+
+        return coordinates;
+    }
+
+    private static void assertBitIdentical(String message, double[] expected, double[] actual) {
+        long[] expectedBits = new long[expected.length];
+        long[] actualBits = new long[actual.length];
+        for (int i = 0; i < expected.length; i++) {
+            expectedBits[i] = Double.doubleToRawLongBits(expected[i]);
+        }
+        for (int i = 0; i < actual.length; i++) {
+            actualBits[i] = Double.doubleToRawLongBits(actual[i]);
+        }
+
+        assertArrayEquals(message, expectedBits, actualBits);
+    }
+
+    @Test
+    public void transformIsBitIdenticalToScalar() {
+        double[] matrix = new MutableMatrix44(
+                Matrix44.rotationXYZ(0.3D, -1.1D, 2.0D).mul(Matrix44.translation(new Vector3(0.5D, -0.25D, 3.0D)))).values;
+
+        for (int count : COUNTS) {
+            for (int sourceOffset : OFFSETS) {
+                for (int destinationOffset : OFFSETS) {
+                    double[] source = coordinates(sourceOffset + count + 2);
+                    double[] expected = coordinates(destinationOffset + count + 2);
+                    double[] actual = expected.clone();
+
+                    this.scalar.transform(matrix, source, sourceOffset, expected, destinationOffset, count);
+                    this.vector.transform(matrix, source, sourceOffset, actual, destinationOffset, count);
+
+                    assertBitIdentical("count " + count, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void projectIsBitIdenticalToScalar() {
+        Vector3 viewer = new Vector3(0.7D, -0.4D, -325.0D);
+
+        for (int count : COUNTS) {
+            for (int offset : OFFSETS) {
+                double[] coordinates = coordinates(offset + count + 2);
+                for (int i = 2; i < coordinates.length; i += 3) {
+                    coordinates[i] += 6.0D;
+                }
+
+                double[] expectedX = new double[offset + count + 2];
+                double[] expectedY = new double[offset + count + 2];
+                double[] actualX = new double[offset + count + 2];
+                double[] actualY = new double[offset + count + 2];
+
+                this.scalar.project(coordinates, offset, count, 160.0D, 120.0D, viewer, expectedX, expectedY);
+                this.vector.project(coordinates, offset, count, 160.0D, 120.0D, viewer, actualX, actualY);
+
+                assertBitIdentical("count " + count, expectedX, actualX);
+                assertBitIdentical("count " + count, expectedY, actualY);
+            }
+        }
+    }
+}